@@ -3,7 +3,7 @@ ai_service.py — 核心 AI 服务，基于 LangChain + OpenAI 兼容接口
 实现"家庭财务管家"角色，可读取用户财务数据并流式输出回答
 """
 import json
-from typing import AsyncIterator
+from typing import AsyncIterator, Optional
 from langchain_openai import ChatOpenAI
 from langchain.schema import HumanMessage, AIMessage, SystemMessage
 from config import OPENAI_API_KEY, OPENAI_BASE_URL, OPENAI_MODEL
@@ -37,12 +37,14 @@ SYSTEM_PROMPT_TEMPLATE = """你是"财务管家"，一位专业的家庭财务
 """
 
 
-def build_system_prompt(user_id: int) -> str:
+def build_system_prompt(user_id: int, snapshot: Optional[dict] = None) -> str:
     """
     构建包含用户财务数据的系统提示词
+    :param snapshot: Java 端随请求发送的财务快照（与 get_full_financial_data 结构相同）；
+                     为空时回退为直接查询数据库
     """
     try:
-        data = get_full_financial_data(user_id)
+        data = snapshot if snapshot is not None else get_full_financial_data(user_id)
         
         # 预处理数据，使缺失状态更明显
         if not data.get("reports"):
@@ -78,18 +80,20 @@ async def chat_stream(
     user_id: int,
     message: str,
     history: list[dict],
+    snapshot: Optional[dict] = None,
 ) -> AsyncIterator[str]:
     """
     流式对话接口
     :param user_id: 当前用户 ID（来自 Java JWT 校验）
     :param message: 用户本次输入
     :param history: 历史对话 [{"role": "user"|"assistant", "content": "..."}]
+    :param snapshot: Java 端构建的财务快照，可为空
     :yields: 每次 LLM 输出的文字片段
     """
     llm = get_llm()
 
     # 构建消息列表
-    system_prompt = build_system_prompt(user_id)
+    system_prompt = build_system_prompt(user_id, snapshot)
     messages = [SystemMessage(content=system_prompt)]
 
     # 加入历史对话（最多保留最近 10 轮，避免超出上下文长度）
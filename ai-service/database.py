@@ -169,8 +169,8 @@ def get_full_financial_data(user_id: int) -> dict:
         ie_items = get_income_expense_items(report_id)
         cashflow = compute_cashflow(ie_items, bs_items)
 
-        # 资产负债汇总
-        asset_cats = ["INVESTMENT_ASSET", "CONSUMER_ASSET", "PERSONAL_ASSET"]
+        # 资产负债汇总：类别与 BalanceSheetItem.Category 一致，口径与 Java 端 FinancialSnapshotService 相同
+        asset_cats = ["CURRENT_ASSET", "INVESTMENT_ASSET", "PERSONAL_ASSET"]
         debt_cats = ["INVESTMENT_DEBT", "CONSUMER_DEBT", "PERSONAL_DEBT"]
         total_assets = sum(i["amount"] or 0 for i in bs_items if i["category"] in asset_cats)
         total_debts = sum(i["amount"] or 0 for i in bs_items if i["category"] in debt_cats)
@@ -53,6 +53,7 @@ class ChatRequest(BaseModel):
     userId: int         # 来自 Java 后端 JWT 校验后的用户 ID
     message: str        # 用户本次发送的消息
     history: Optional[list[ChatMessage]] = []   # 历史对话
+    snapshot: Optional[dict] = None             # Java 端按报表版本缓存的财务快照；为空时自行查库
 
 
 @app.get("/", summary="根路径响应")
@@ -94,7 +95,7 @@ async def chat(req: ChatRequest):
 
     async def event_generator():
         try:
-            async for token_type, token_content in chat_stream(req.userId, req.message, history_dicts):
+            async for token_type, token_content in chat_stream(req.userId, req.message, history_dicts, req.snapshot):
                 # 将每个片段封装为 SSE 事件，type 可为 "answer" 或 "thinking"
                 data = json.dumps({"type": token_type, "content": token_content}, ensure_ascii=False)
                 yield f"data: {data}\n\n"
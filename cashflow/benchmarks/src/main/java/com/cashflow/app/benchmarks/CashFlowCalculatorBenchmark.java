@@ -0,0 +1,118 @@
+package com.cashflow.app.benchmarks;
+
+import com.cashflow.app.calculator.CashFlowCalculator;
+import com.cashflow.app.calculator.CashFlowCalculator.Kind;
+import com.cashflow.app.calculator.CashFlowResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of one cash-flow calculation for reports of 10, 1k and 100k income/expense
+ * items (plus one balance-sheet item per ten). Run with {@code -prof gc} to get the
+ * allocation per call ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CashFlowCalculatorBenchmark {
+
+    private static final Kind[] KINDS = Kind.values();
+
+    @Param({ "10", "1000", "100000" })
+    int items;
+
+    // Income/expense inputs
+    boolean[] expense;
+    Kind[] kind;
+    String[] name;
+    double[] amount;
+    boolean[] isInterest;
+    double[] interestAmount;
+
+    // Balance-sheet inputs
+    boolean[] debt;
+    String[] bsName;
+    boolean[] bsIsInterest;
+    double[] bsInterestAmount;
+
+    CashFlowCalculator reused;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int bsItems = Math.max(1, items / 10);
+
+        debt = new boolean[bsItems];
+        bsName = new String[bsItems];
+        bsIsInterest = new boolean[bsItems];
+        bsInterestAmount = new double[bsItems];
+        for (int i = 0; i < bsItems; i++) {
+            debt[i] = random.nextInt(2) == 0;
+            bsName[i] = "bs-" + i;
+            bsIsInterest[i] = random.nextBoolean();
+            bsInterestAmount[i] = random.nextInt(1000);
+        }
+
+        expense = new boolean[items];
+        kind = new Kind[items];
+        name = new String[items];
+        amount = new double[items];
+        isInterest = new boolean[items];
+        interestAmount = new double[items];
+        for (int i = 0; i < items; i++) {
+            kind[i] = KINDS[random.nextInt(KINDS.length)];
+            expense[i] = kind[i] != Kind.LABOR_INCOME && kind[i] != Kind.ASSET_INCOME;
+            // Some lines share a balance-sheet name (synced debts), some repeat another line's name
+            int pick = random.nextInt(10);
+            if (pick == 0) {
+                name[i] = bsName[random.nextInt(bsItems)];
+            } else if (pick == 1 && i > 0) {
+                name[i] = name[random.nextInt(i)];
+            } else {
+                name[i] = "ie-" + i;
+            }
+            amount[i] = random.nextInt(10_000);
+            isInterest[i] = random.nextInt(5) == 0;
+            interestAmount[i] = isInterest[i] ? random.nextInt(500) : 0;
+        }
+
+        reused = new CashFlowCalculator(items, bsItems);
+    }
+
+    @Benchmark
+    public CashFlowResult freshCalculator() {
+        return feed(new CashFlowCalculator(items, debt.length)).calculate();
+    }
+
+    @Benchmark
+    public CashFlowResult reusedCalculator() {
+        reused.reset();
+        return feed(reused).calculate();
+    }
+
+    private CashFlowCalculator feed(CashFlowCalculator calculator) {
+        for (int i = 0; i < debt.length; i++) {
+            calculator.addBalanceSheetItem(debt[i], bsName[i], bsIsInterest[i], bsInterestAmount[i]);
+        }
+        for (int i = 0; i < items; i++) {
+            calculator.addIncomeExpenseItem(expense[i], kind[i], name[i], amount[i], isInterest[i],
+                    interestAmount[i]);
+        }
+        return calculator;
+    }
+}
@@ -0,0 +1,83 @@
+package com.cashflow.app.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token verifications per second on one thread (i.e. per core) for the way
+ * {@code JwtUtils} handles an authenticated request.
+ *
+ * <ul>
+ * <li>{@code perCallKeyAndParser}: the old path, which decodes the secret and builds a
+ * key and parser for {@code validateJwtToken}, then again for
+ * {@code getUserNameFromJwtToken} (two full verifications).</li>
+ * <li>{@code sharedParser}: the current path, one {@code parseValidClaims} call on a
+ * parser built at startup.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    String secret;
+    String token;
+    JwtParser parser;
+
+    @Setup
+    public void setUp() {
+        byte[] secretBytes = new byte[64];
+        for (int i = 0; i < secretBytes.length; i++) {
+            secretBytes[i] = (byte) (i * 31 + 7);
+        }
+        secret = Base64.getEncoder().encodeToString(secretBytes);
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        token = Jwts.builder()
+                .subject("benchmark-user")
+                .claim("uid", 42L)
+                .claim("email", "user@example.com")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)))
+                .signWith(key)
+                .compact();
+        parser = Jwts.parser().verifyWith(key).build();
+    }
+
+    @Benchmark
+    public String perCallKeyAndParser() {
+        SecretKey validateKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        Jwts.parser().verifyWith(validateKey).build().parseSignedClaims(token);
+        SecretKey subjectKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        return Jwts.parser().verifyWith(subjectKey).build()
+                .parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    @Benchmark
+    public String sharedParser() {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        return claims.getSubject();
+    }
+}
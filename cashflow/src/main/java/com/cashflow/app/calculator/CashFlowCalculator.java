@@ -0,0 +1,180 @@
+package com.cashflow.app.calculator;
+
+import java.util.Arrays;
+
+/**
+ * Cash-flow rules of a report, free of Spring and JPA so they can be benchmarked in
+ * isolation.
+ *
+ * <p>
+ * Feed every balance-sheet and income-expense line with the {@code add...} methods,
+ * then call {@link #calculate()}. Inputs are kept in primitive arrays and totals in
+ * arrays indexed by {@link Bucket}; an instance can be {@link #reset() reset} and
+ * reused. Instances are not thread-safe.
+ */
+public final class CashFlowCalculator {
+
+    /** Totals reported by the cash-flow table. */
+    public enum Bucket {
+        LABOR_INCOME,
+        ASSET_INCOME,
+        LIVING_EXPENSE,
+        INTEREST_EXPENSE,
+        ASSET_EXPENSE
+    }
+
+    /** Income/expense categories, mirroring {@code IncomeExpenseItem.Category}. */
+    public enum Kind {
+        LABOR_INCOME,
+        ASSET_INCOME,
+        LIVING_EXPENSE,
+        ASSET_EXPENSE,
+        LOAN_REPAYMENT
+    }
+
+    static final String DEBT_INTEREST_SUFFIX = " (利息)";
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Income/expense lines in input order
+    private boolean[] ieExpense;
+    private Kind[] ieKind;
+    private String[] ieName;
+    private double[] ieAmount;
+    private boolean[] ieIsInterest;
+    private double[] ieInterestAmount;
+    private int ieCount;
+
+    // Balance-sheet debt lines in input order
+    private String[] debtName;
+    private boolean[] debtIsInterest;
+    private double[] debtInterestAmount;
+    private int debtCount;
+
+    private final NamedAmounts debtNames = new NamedAmounts();
+
+    public CashFlowCalculator() {
+        this(DEFAULT_CAPACITY, DEFAULT_CAPACITY);
+    }
+
+    public CashFlowCalculator(int expectedIncomeExpenseItems, int expectedBalanceSheetItems) {
+        int ie = Math.max(1, expectedIncomeExpenseItems);
+        int bs = Math.max(1, expectedBalanceSheetItems);
+        ieExpense = new boolean[ie];
+        ieKind = new Kind[ie];
+        ieName = new String[ie];
+        ieAmount = new double[ie];
+        ieIsInterest = new boolean[ie];
+        ieInterestAmount = new double[ie];
+        debtName = new String[bs];
+        debtIsInterest = new boolean[bs];
+        debtInterestAmount = new double[bs];
+    }
+
+    /**
+     * Adds a balance-sheet line. Only debts take part in the cash flow: their interest
+     * is an asset expense, and income/expense lines with the same name are treated as
+     * repayments of that debt.
+     */
+    public void addBalanceSheetItem(boolean debt, String name, boolean isInterest, double interestAmount) {
+        if (!debt) {
+            return;
+        }
+        if (debtCount == debtName.length) {
+            int capacity = debtCount * 2;
+            debtName = Arrays.copyOf(debtName, capacity);
+            debtIsInterest = Arrays.copyOf(debtIsInterest, capacity);
+            debtInterestAmount = Arrays.copyOf(debtInterestAmount, capacity);
+        }
+        debtName[debtCount] = name;
+        debtIsInterest[debtCount] = isInterest;
+        debtInterestAmount[debtCount] = interestAmount;
+        debtCount++;
+        debtNames.put(name, 0);
+    }
+
+    /**
+     * Adds an income/expense line; returns its index, which
+     * {@link CashFlowResult#itemIndex(Bucket, int)} refers back to.
+     */
+    public int addIncomeExpenseItem(boolean expense, Kind kind, String name, double amount,
+            boolean isInterest, double interestAmount) {
+        if (ieCount == ieName.length) {
+            int capacity = ieCount * 2;
+            ieExpense = Arrays.copyOf(ieExpense, capacity);
+            ieKind = Arrays.copyOf(ieKind, capacity);
+            ieName = Arrays.copyOf(ieName, capacity);
+            ieAmount = Arrays.copyOf(ieAmount, capacity);
+            ieIsInterest = Arrays.copyOf(ieIsInterest, capacity);
+            ieInterestAmount = Arrays.copyOf(ieInterestAmount, capacity);
+        }
+        ieExpense[ieCount] = expense;
+        ieKind[ieCount] = kind;
+        ieName[ieCount] = name;
+        ieAmount[ieCount] = amount;
+        ieIsInterest[ieCount] = isInterest;
+        ieInterestAmount[ieCount] = interestAmount;
+        return ieCount++;
+    }
+
+    /** Name of the asset-expense line carrying the interest of a balance-sheet debt. */
+    public static String debtInterestLine(String debtName) {
+        return debtName + DEBT_INTEREST_SUFFIX;
+    }
+
+    public CashFlowResult calculate() {
+        CashFlowResult result = new CashFlowResult(ieCount, debtNames);
+        NamedAmounts assetIncome = result.lines(Bucket.ASSET_INCOME);
+        NamedAmounts interestExpense = result.lines(Bucket.INTEREST_EXPENSE);
+        NamedAmounts assetExpense = result.lines(Bucket.ASSET_EXPENSE);
+
+        // Interest of balance-sheet debts goes to asset expense
+        for (int i = 0; i < debtCount; i++) {
+            if (debtIsInterest[i] && debtInterestAmount[i] > 0) {
+                assetExpense.put(debtInterestLine(debtName[i]), debtInterestAmount[i]);
+            }
+        }
+
+        for (int i = 0; i < ieCount; i++) {
+            String name = ieName[i];
+            Kind kind = ieKind[i];
+            if (!ieExpense[i]) {
+                if (kind == Kind.LABOR_INCOME) {
+                    result.addItem(Bucket.LABOR_INCOME, i, ieAmount[i]);
+                } else if (kind == Kind.ASSET_INCOME) {
+                    assetIncome.put(name, ieAmount[i]);
+                }
+                continue;
+            }
+
+            if (kind == Kind.LIVING_EXPENSE) {
+                result.addItem(Bucket.LIVING_EXPENSE, i, ieAmount[i]);
+            }
+            boolean isDebt = debtNames.contains(name);
+            // Interest of synced BS debts is counted under asset expense instead
+            if (ieIsInterest[i] && !isDebt) {
+                interestExpense.put(name, ieAmount[i]);
+            }
+            if (kind == Kind.ASSET_EXPENSE || kind == Kind.LOAN_REPAYMENT) {
+                if (!isDebt) {
+                    assetExpense.put(name, ieAmount[i]);
+                } else if (ieIsInterest[i] && ieInterestAmount[i] > 0) {
+                    // Debt principal repayment stays out of the cash flow, only its interest counts
+                    assetExpense.put(name, ieInterestAmount[i]);
+                }
+            }
+        }
+
+        result.complete();
+        return result;
+    }
+
+    public void reset() {
+        Arrays.fill(ieName, 0, ieCount, null);
+        Arrays.fill(ieKind, 0, ieCount, null);
+        Arrays.fill(debtName, 0, debtCount, null);
+        ieCount = 0;
+        debtCount = 0;
+        debtNames.clear();
+    }
+}
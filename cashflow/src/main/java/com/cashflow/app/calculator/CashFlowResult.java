@@ -0,0 +1,89 @@
+package com.cashflow.app.calculator;
+
+import com.cashflow.app.calculator.CashFlowCalculator.Bucket;
+
+import java.util.Arrays;
+
+/**
+ * Output of {@link CashFlowCalculator#calculate()}: one total per {@link Bucket}, the
+ * name-merged display lines of the asset income, interest expense and asset expense
+ * buckets, and the input indexes of the lines listed under labor income and living
+ * expense. Stays valid until the calculator that produced it is reset.
+ */
+public final class CashFlowResult {
+
+    private static final Bucket[] BUCKETS = Bucket.values();
+
+    private final double[] totals = new double[BUCKETS.length];
+    private final NamedAmounts[] lines = new NamedAmounts[BUCKETS.length];
+    private final int[][] itemIndexes = new int[BUCKETS.length][];
+    private final int[] itemCounts = new int[BUCKETS.length];
+    private final NamedAmounts debtNames;
+
+    CashFlowResult(int incomeExpenseItems, NamedAmounts debtNames) {
+        this.debtNames = debtNames;
+        int expected = Math.max(4, incomeExpenseItems / 4);
+        lines[Bucket.ASSET_INCOME.ordinal()] = new NamedAmounts(expected);
+        lines[Bucket.INTEREST_EXPENSE.ordinal()] = new NamedAmounts(expected);
+        lines[Bucket.ASSET_EXPENSE.ordinal()] = new NamedAmounts(expected);
+        itemIndexes[Bucket.LABOR_INCOME.ordinal()] = new int[expected];
+        itemIndexes[Bucket.LIVING_EXPENSE.ordinal()] = new int[expected];
+    }
+
+    void addItem(Bucket bucket, int index, double amount) {
+        int b = bucket.ordinal();
+        if (itemCounts[b] == itemIndexes[b].length) {
+            itemIndexes[b] = Arrays.copyOf(itemIndexes[b], itemCounts[b] * 2);
+        }
+        itemIndexes[b][itemCounts[b]++] = index;
+        totals[b] += amount;
+    }
+
+    void complete() {
+        for (Bucket bucket : BUCKETS) {
+            NamedAmounts bucketLines = lines[bucket.ordinal()];
+            if (bucketLines != null) {
+                totals[bucket.ordinal()] = bucketLines.sum();
+            }
+        }
+    }
+
+    public double total(Bucket bucket) {
+        return totals[bucket.ordinal()];
+    }
+
+    public double totalIncome() {
+        return total(Bucket.LABOR_INCOME) + total(Bucket.ASSET_INCOME);
+    }
+
+    public double totalExpense() {
+        return total(Bucket.LIVING_EXPENSE) + total(Bucket.INTEREST_EXPENSE) + total(Bucket.ASSET_EXPENSE);
+    }
+
+    public double monthlyCashFlow() {
+        return totalIncome() - totalExpense();
+    }
+
+    /**
+     * Display lines of {@code ASSET_INCOME}, {@code INTEREST_EXPENSE} or
+     * {@code ASSET_EXPENSE}; {@code null} for buckets that list input items instead.
+     */
+    public NamedAmounts lines(Bucket bucket) {
+        return lines[bucket.ordinal()];
+    }
+
+    /** Number of input items listed under {@code LABOR_INCOME} or {@code LIVING_EXPENSE}. */
+    public int itemCount(Bucket bucket) {
+        return itemCounts[bucket.ordinal()];
+    }
+
+    /** Input index (as returned by {@code addIncomeExpenseItem}) of the i-th listed item. */
+    public int itemIndex(Bucket bucket, int i) {
+        return itemIndexes[bucket.ordinal()][i];
+    }
+
+    /** Names of the balance-sheet debts, used to tell repayments from other expenses. */
+    public NamedAmounts debtNames() {
+        return debtNames;
+    }
+}
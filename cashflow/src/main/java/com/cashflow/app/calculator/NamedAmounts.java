@@ -0,0 +1,118 @@
+package com.cashflow.app.calculator;
+
+import java.util.Arrays;
+
+/**
+ * Insertion-ordered name → amount table with "last write wins" semantics, backed by
+ * an open-addressing hash over parallel arrays (no boxing, no per-entry objects).
+ */
+public final class NamedAmounts {
+
+    private static final int MIN_CAPACITY = 8;
+
+    // Entries in insertion order
+    private String[] names;
+    private double[] amounts;
+    private int size;
+
+    // Open-addressing slots holding (entry index + 1); 0 marks an empty slot
+    private int[] slots;
+
+    public NamedAmounts() {
+        this(MIN_CAPACITY);
+    }
+
+    public NamedAmounts(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, expectedSize);
+        names = new String[capacity];
+        amounts = new double[capacity];
+        slots = new int[tableSizeFor(capacity)];
+    }
+
+    /**
+     * Sets the amount of {@code name}, replacing any earlier value but keeping its
+     * original position.
+     */
+    public void put(String name, double amount) {
+        int slot = find(name);
+        if (slots[slot] != 0) {
+            amounts[slots[slot] - 1] = amount;
+            return;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            amounts = Arrays.copyOf(amounts, size * 2);
+        }
+        names[size] = name;
+        amounts[size] = amount;
+        size++;
+        slots[slot] = size;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+    }
+
+    public boolean contains(String name) {
+        return slots[find(name)] != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+
+    public double amount(int index) {
+        return amounts[index];
+    }
+
+    public double sum() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += amounts[i];
+        }
+        return sum;
+    }
+
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    private int find(String name) {
+        int mask = slots.length - 1;
+        int slot = spread(name) & mask;
+        while (slots[slot] != 0 && !equal(names[slots[slot] - 1], name)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int newLength) {
+        slots = new int[newLength];
+        int mask = newLength - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = spread(names[i]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    private static int spread(String name) {
+        int h = name == null ? 0 : name.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+}
@@ -0,0 +1,79 @@
+package com.cashflow.app.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * HTTP client of the Python AI service: its own connection pool, so chat streams
+ * neither wait behind nor starve other WebClient users, plus the scheduler that
+ * writes streamed events to the browsers.
+ */
+@Configuration
+public class AiClientConfig {
+
+    @Value("${ai.service.url:http://localhost:8001}")
+    private String aiServiceUrl;
+
+    @Value("${ai.client.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${ai.client.pending-acquire-timeout:5s}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${ai.client.max-idle-time:30s}")
+    private Duration maxIdleTime;
+
+    @Value("${ai.client.connect-timeout:3s}")
+    private Duration connectTimeout;
+
+    @Value("${ai.client.response-timeout:60s}")
+    private Duration responseTimeout;
+
+    @Value("${ai.chat.max-global:100}")
+    private int maxChats;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider aiConnectionProvider() {
+        return ConnectionProvider.builder("ai-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxConnections)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .evictInBackground(maxIdleTime)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient aiWebClient(WebClient.Builder builder, ConnectionProvider aiConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(aiConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                // Longest silence between two reads of a response, i.e. also between streamed tokens
+                .responseTimeout(responseTimeout);
+        return builder
+                .baseUrl(aiServiceUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // 10 MB: large non-streamed AI replies must not be truncated
+                .codecs(c -> c.defaultCodecs().maxInMemorySize(10 * 1024 * 1024))
+                .build();
+    }
+
+    /**
+     * Runs the (blocking) servlet writes of streamed chat events off the Netty event
+     * loop. One worker per concurrent chat at most; idle workers are released.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler aiStreamScheduler() {
+        return Schedulers.newBoundedElastic(maxChats, Integer.MAX_VALUE, "ai-sse");
+    }
+}
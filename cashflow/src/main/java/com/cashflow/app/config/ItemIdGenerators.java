@@ -0,0 +1,68 @@
+package com.cashflow.app.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Table-backed id generators of the item entities. Each row of {@value #TABLE} holds
+ * the last id handed out for one item table; with the pooled-lo optimizer Hibernate
+ * reserves {@value #ALLOCATION_SIZE} ids per update of that row and assigns them in
+ * memory, so inserts can be sent as JDBC batches.
+ * <p>
+ * Rows written with {@code AUTO_INCREMENT} ids before the switch are unknown to the
+ * generator, so at startup, before the web server accepts requests, every row is
+ * raised to at least the {@code max(id)} of its table. This never lowers a value, so
+ * it is safe on every start and with several instances.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ItemIdGenerators {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemIdGenerators.class);
+
+    public static final String TABLE = "id_generators";
+    public static final int ALLOCATION_SIZE = 50;
+
+    // Segment value of each generator, which is also the table it numbers
+    private static final List<String> TABLES = List.of("balance_sheet_items", "income_expense_items");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ItemIdGenerators(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void alignWithExistingIds() {
+        for (String table : TABLES) {
+            long lastId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+            if (raise(table, lastId) == 0 && !exists(table)) {
+                try {
+                    jdbcTemplate.update("insert into " + TABLE + " (sequence_name, next_val) values (?, ?)",
+                            table, lastId);
+                    logger.info("Id generator {} starts after {}", table, lastId);
+                } catch (DuplicateKeyException e) {
+                    // Another instance inserted it first
+                    raise(table, lastId);
+                }
+            }
+        }
+    }
+
+    private int raise(String table, long lastId) {
+        return jdbcTemplate.update("update " + TABLE + " set next_val = ? where sequence_name = ? and next_val < ?",
+                lastId, table, lastId);
+    }
+
+    private boolean exists(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + TABLE + " where sequence_name = ?",
+                Integer.class, table) > 0;
+    }
+}
@@ -0,0 +1,89 @@
+package com.cashflow.app.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the API's response records, and lists of them, with {@link ObjectWriter}s
+ * built once at startup. The root serializer of each writer is resolved up front, so
+ * a response skips the writer construction and serializer lookup that the default
+ * Jackson converter repeats per request. Any other body falls through to that
+ * converter.
+ */
+public class PrecomputedJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final TypeFactory typeFactory;
+    private final Map<JavaType, ObjectWriter> writers = new HashMap<>();
+
+    public PrecomputedJsonHttpMessageConverter(ObjectMapper objectMapper, Class<?>... types) {
+        super(MediaType.APPLICATION_JSON);
+        this.typeFactory = objectMapper.getTypeFactory();
+        for (Class<?> type : types) {
+            register(objectMapper, typeFactory.constructType(type));
+            register(objectMapper, typeFactory.constructCollectionType(List.class, type));
+        }
+    }
+
+    private void register(ObjectMapper objectMapper, JavaType type) {
+        writers.put(type, objectMapper.writerFor(type));
+    }
+
+    private ObjectWriter writerFor(Type type, Class<?> clazz) {
+        ObjectWriter writer = type != null ? writers.get(typeFactory.constructType(type)) : null;
+        return writer != null ? writer : writers.get(typeFactory.constructType(clazz));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return canWrite(mediaType) && writerFor(type, clazz) != null;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return canWrite(null, clazz, mediaType);
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        writerFor(type, body.getClass()).writeValue(StreamUtils.nonClosing(outputMessage.getBody()), body);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Write-only converter", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Write-only converter", inputMessage);
+    }
+}
@@ -5,8 +5,10 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
 import java.util.stream.Collectors;
+import com.cashflow.app.security.BoundedPasswordEncoder;
 import com.cashflow.app.security.jwt.AuthTokenFilter;
 import com.cashflow.app.security.services.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -41,6 +43,20 @@ public class SecurityConfig {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 提高后，旧强度的哈希在用户下次登录时自动重算
+    @Value("${app.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    // 0 = CPU 核数
+    @Value("${app.security.password-hash.threads:0}")
+    private int passwordHashThreads;
+
+    @Value("${app.security.password-hash.queue-capacity:64}")
+    private int passwordHashQueueCapacity;
+
     private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
 
     @Bean
@@ -48,9 +64,12 @@ public class SecurityConfig {
         return new AuthTokenFilter();
     }
 
+    // BCrypt runs on its own core-sized pool; a full queue fails fast with 503
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int threads = passwordHashThreads > 0 ? passwordHashThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), threads,
+                passwordHashQueueCapacity, meterRegistry);
     }
 
     @Bean
@@ -58,6 +77,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Rehash weaker passwords on successful login
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -76,6 +97,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/error").permitAll()
+                        // Health probes only; the other actuator endpoints are on the management port
+                        .requestMatchers("/livez", "/readyz").permitAll()
                         .dispatcherTypeMatchers(jakarta.servlet.DispatcherType.ASYNC,
                                 jakarta.servlet.DispatcherType.FORWARD, jakarta.servlet.DispatcherType.ERROR)
                         .permitAll()
@@ -119,7 +142,8 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(origins);
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Auth-Token"));
-        configuration.setExposedHeaders(Arrays.asList("X-Auth-Token"));
+        configuration.setExposedHeaders(Arrays.asList("X-Auth-Token", "X-Total-Count", "X-Next-Cursor",
+                "X-Conversation-Id"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
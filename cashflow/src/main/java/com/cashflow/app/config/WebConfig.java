@@ -0,0 +1,48 @@
+package com.cashflow.app.config;
+
+import com.cashflow.app.payload.response.BalanceSheetItemView;
+import com.cashflow.app.payload.response.CashFlowTable;
+import com.cashflow.app.payload.response.Dashboard;
+import com.cashflow.app.payload.response.IncomeExpenseItemView;
+import com.cashflow.app.payload.response.ItemBatchResult;
+import com.cashflow.app.payload.response.ReportView;
+import com.cashflow.app.security.CurrentUserIdArgumentResolver;
+import com.cashflow.app.security.ReportOwnershipInterceptor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    ReportOwnershipInterceptor reportOwnershipInterceptor;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Every /api/reports/{reportId}/** endpoint is ownership-checked here
+        registry.addInterceptor(reportOwnershipInterceptor).addPathPatterns("/api/reports/*", "/api/reports/*/**");
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new CurrentUserIdArgumentResolver());
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Ahead of the default Jackson converter for the report and item views it would otherwise handle
+        converters.add(0, new PrecomputedJsonHttpMessageConverter(objectMapper, ReportView.class,
+                BalanceSheetItemView.class, IncomeExpenseItemView.class, CashFlowTable.class, Dashboard.class,
+                ItemBatchResult.class));
+    }
+}
@@ -2,21 +2,37 @@ package com.cashflow.app.controller;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
 
-import com.cashflow.app.entity.User;
-import com.cashflow.app.repository.UserRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.cashflow.app.payload.response.FinancialSnapshot;
+import com.cashflow.app.security.CurrentUserId;
+import com.cashflow.app.service.AiChatLimiter;
+import com.cashflow.app.service.AiResponseCache;
+import com.cashflow.app.service.AiServiceHealth;
+import com.cashflow.app.service.AiStreamMetrics;
+import com.cashflow.app.service.ConversationStore;
+import com.cashflow.app.service.FinancialSnapshotService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * AiController — 将前端的 AI 对话请求代理到 Python AI 微服务
@@ -40,32 +56,58 @@ public class AiController {
 
         private static final Logger logger = LoggerFactory.getLogger(AiController.class);
 
-        /** Python AI 微服务的基础 URL，来自 application.properties / .env */
-        @Value("${ai.service.url:http://localhost:8001}")
-        private String aiServiceUrl;
+        /** 单次对话流的最长时长（超时后断开并取消上游请求） */
+        @Value("${ai.chat.timeout:10m}")
+        private Duration chatTimeout;
 
-        @Autowired
-        private UserRepository userRepository;
+        /** 响应头：本次对话所属的服务端会话 ID */
+        private static final String CONVERSATION_ID_HEADER = "X-Conversation-Id";
 
-        /** WebClient 实例（每次请求复用，非阻塞 HTTP 客户端） */
+        /** 每个对话流最多预取的上游事件数：浏览器写得慢时，上游读取随之放缓（背压） */
+        private static final int STREAM_PREFETCH = 32;
+
+        private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE = new ParameterizedTypeReference<>() {
+        };
+
+        /** 专用连接池的 AI 服务 WebClient（见 AiClientConfig） */
         private final WebClient webClient;
 
-        public AiController(WebClient.Builder webClientBuilder) {
-                // 最大响应大小设为 10 MB（防止超大 AI 回复被截断）
-                this.webClient = webClientBuilder
-                                .codecs(c -> c.defaultCodecs().maxInMemorySize(10 * 1024 * 1024))
-                                .build();
-        }
+        /** 向浏览器写事件的线程池，避免在 Netty 事件循环线程上做阻塞写 */
+        private final Scheduler streamScheduler;
 
-        /**
-         * 从 Spring Security 上下文获取当前登录用户。
-         * 此方法在 JWT 过滤器成功校验后调用，不会返回 null。
-         */
-        private User getCurrentUser() {
-                UserDetails userDetails = (UserDetails) SecurityContextHolder
-                                .getContext().getAuthentication().getPrincipal();
-                return userRepository.findByUsername(userDetails.getUsername())
-                                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        private final AiChatLimiter chatLimiter;
+
+        /** 按报表版本缓存的财务快照，随请求发给 Python 服务 */
+        private final FinancialSnapshotService snapshotService;
+
+        /** AI 回答缓存与进行中请求合并 */
+        private final AiResponseCache responseCache;
+
+        /** 后台探测的 AI 服务状态与熔断器 */
+        private final AiServiceHealth aiServiceHealth;
+
+        /** 服务端会话历史 */
+        private final ConversationStore conversationStore;
+
+        /** 上游回答流的首 token 时间、时长与吞吐指标 */
+        private final AiStreamMetrics streamMetrics;
+
+        public AiController(@Qualifier("aiWebClient") WebClient webClient,
+                        @Qualifier("aiStreamScheduler") Scheduler streamScheduler,
+                        AiChatLimiter chatLimiter,
+                        FinancialSnapshotService snapshotService,
+                        AiResponseCache responseCache,
+                        AiServiceHealth aiServiceHealth,
+                        ConversationStore conversationStore,
+                        AiStreamMetrics streamMetrics) {
+                this.webClient = webClient;
+                this.streamScheduler = streamScheduler;
+                this.chatLimiter = chatLimiter;
+                this.snapshotService = snapshotService;
+                this.responseCache = responseCache;
+                this.aiServiceHealth = aiServiceHealth;
+                this.conversationStore = conversationStore;
+                this.streamMetrics = streamMetrics;
         }
 
         // ===================== 内部 DTO（请求体结构） =====================
@@ -74,12 +116,16 @@ public class AiController {
         record HistoryMessage(String role, String content) {
         }
 
-        /** 转发给 Python 服务的请求体 */
-        record AiChatProxyRequest(long userId, String message, List<HistoryMessage> history) {
+        /** 转发给 Python 服务的请求体；snapshot 为空时 Python 端自行查库 */
+        record AiChatProxyRequest(long userId, String message, List<HistoryMessage> history,
+                        FinancialSnapshot snapshot) {
         }
 
-        /** 来自前端的请求体 */
-        record FrontendChatRequest(String message, List<HistoryMessage> history) {
+        /**
+         * 来自前端的请求体；带 conversationId 时使用服务端保存的会话历史，history 可省略。
+         * 无 conversationId 时以 history 开启新会话，新会话 ID 由响应头 X-Conversation-Id 返回
+         */
+        record FrontendChatRequest(String message, List<HistoryMessage> history, String conversationId) {
         }
 
         // ===================== 接口 =====================
@@ -92,82 +138,163 @@ public class AiController {
          * 并以 SSE 格式将流式回答实时返回给前端。
          *
          * <p>
-         * 前端请求体：{@code {"message": "...", "history": [...]}}
+         * 前端请求体：{@code {"message": "...", "conversationId": "..."}}（旧版：{@code "history": [...]}）
+         * <p>
+         * 会话不存在（已过期、服务重启或位于其他实例）时返回 409，前端应不带 conversationId、改为上传本地历史重发
          * <p>
          * 响应：{@code text/event-stream}，格式见 Python main.py
          */
         @PostMapping(value = "/chat", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-        public org.springframework.web.servlet.mvc.method.annotation.SseEmitter chat(
-                        @RequestBody FrontendChatRequest frontendReq) {
-                // 1. 获取当前用户 ID（已由 JWT 校验）
-                User currentUser = getCurrentUser();
-                long userId = currentUser.getId();
-
-                logger.info("AI chat proxy: userId={}, messageLen={}", userId, frontendReq.message().length());
-
-                // 2. 构造转发请求体（注入 userId）
-                AiChatProxyRequest proxyReq = new AiChatProxyRequest(
-                                userId,
-                                frontendReq.message(),
-                                frontendReq.history() != null ? frontendReq.history() : List.of());
-
-                // 3. 使用 Spring MVC 原生的 SseEmitter 来推送流，避免 Tomcat 对 Flux 的缓冲截断问题
-                org.springframework.web.servlet.mvc.method.annotation.SseEmitter emitter = new org.springframework.web.servlet.mvc.method.annotation.SseEmitter(
-                                3600000L); // 1小时超时
-
-                webClient.post()
-                                .uri(aiServiceUrl + "/chat")
-                                .contentType(MediaType.APPLICATION_JSON)
-                                .bodyValue(proxyReq)
-                                .retrieve()
-                                .bodyToFlux(
-                                                new org.springframework.core.ParameterizedTypeReference<org.springframework.http.codec.ServerSentEvent<String>>() {
-                                                })
-                                .subscribe(
-                                                sse -> {
-                                                        try {
-                                                                if (sse.data() != null) {
-                                                                        emitter.send(sse.data());
-                                                                }
-                                                        } catch (Exception e) {
-                                                                emitter.completeWithError(e);
-                                                        }
-                                                },
-                                                error -> {
-                                                        logger.error("AI service proxy error for userId={}: {}", userId,
-                                                                        error.getMessage());
-                                                        try {
-                                                                emitter.send(org.springframework.web.servlet.mvc.method.annotation.SseEmitter
-                                                                                .event()
-                                                                                .data("{\"type\":\"error\",\"content\":\"AI 服务请求错误："
-                                                                                                + error.getMessage()
-                                                                                                + "\"}"));
-                                                                emitter.complete();
-                                                        } catch (Exception ex) {
-                                                        }
-                                                },
-                                                () -> emitter.complete());
-
-                return emitter;
+        public ResponseEntity<SseEmitter> chat(
+                        @CurrentUserId Long userId, @RequestBody FrontendChatRequest frontendReq) {
+                // 1. 当前用户 ID 由参数解析器从 JWT 主体中取得（不查询用户表）；消息为空时在占用并发名额之前拒绝
+                if (frontendReq.message() == null || frontendReq.message().isBlank()) {
+                        return ResponseEntity.badRequest().build();
+                }
+
+                // 2. 熔断：AI 服务不可用时立即失败，不再逐个等待连接错误
+                if (!aiServiceHealth.allowRequest()) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                        .header(HttpHeaders.RETRY_AFTER, "15")
+                                        .build();
+                }
+
+                // 3. 并发限制：单用户与全局的进行中对话数
+                AiChatLimiter.Permit permit = chatLimiter.tryAcquire(userId);
+                if (permit == null) {
+                        logger.warn("AI chat rejected (too many concurrent chats): userId={}", userId);
+                        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                        .header(HttpHeaders.RETRY_AFTER, "5")
+                                        .build();
+                }
+
+                // 4. 取得名额后的任何异常都要归还名额
+                SseEmitter emitter;
+                String conversationId;
+                try {
+                        logger.info("AI chat proxy: userId={}, messageLen={}", userId, frontendReq.message().length());
+
+                        // 使用 Spring MVC 原生的 SseEmitter 来推送流，避免 Tomcat 对 Flux 的缓冲截断问题
+                        emitter = new SseEmitter(chatTimeout.toMillis());
+
+                        // 5. 服务端会话：只转发按 token 预算截取的最近窗口，更早的轮次不再转发
+                        ConversationStore.Conversation conversation = conversationStore.open(userId,
+                                        frontendReq.conversationId(), toMessages(frontendReq.history()));
+                        if (conversation == null) {
+                                permit.release();
+                                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+                        }
+                        conversationId = conversation.id();
+                        // 回答完成时会话若已被其他请求（如合并的相同请求）更新，则不再重复记录
+                        long revision = conversation.revision();
+                        List<HistoryMessage> history = conversation.window().stream()
+                                        .map(m -> new HistoryMessage(m.role(), m.content()))
+                                        .toList();
+
+                        // 6. 构造转发请求体（注入 userId 与财务快照）
+                        AiChatProxyRequest proxyReq = new AiChatProxyRequest(
+                                        userId,
+                                        frontendReq.message(),
+                                        history,
+                                        snapshot(userId));
+
+                        // 7. 相同问题 + 相同历史 + 财务数据未变时直接重放缓存的回答；相同请求进行中时合并为一次上游调用
+                        AiResponseCache.Key cacheKey = responseCache.key(userId, proxyReq.message(),
+                                        history.stream().flatMap(h -> Stream.of(h.role(), h.content())).toList(),
+                                        proxyReq.snapshot());
+                        Flux<String> answer = responseCache.stream(cacheKey, () -> webClient.post()
+                                        .uri("/chat")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .bodyValue(proxyReq)
+                                        .retrieve()
+                                        .bodyToFlux(SSE_TYPE)
+                                        .mapNotNull(ServerSentEvent::data)
+                                        .transform(streamMetrics::instrument)
+                                        .doOnComplete(aiServiceHealth::recordSuccess)
+                                        .doOnError(aiServiceHealth::recordFailure));
+
+                        List<String> events = new ArrayList<>();
+                        Disposable upstream = answer
+                                        // 在专用线程上写浏览器，只预取少量事件
+                                        .publishOn(streamScheduler, STREAM_PREFETCH)
+                                        // 写失败（浏览器已断开）会以错误结束并取消上游
+                                        .doOnNext(data -> send(emitter, data))
+                                        // 回答完整送达后追加到会话
+                                        .doOnNext(events::add)
+                                        .doOnComplete(() -> conversationStore.recordExchange(conversation,
+                                                        revision, proxyReq.message(), events))
+                                        .doFinally(signal -> permit.release())
+                                        .subscribe(null, error -> fail(emitter, userId, error), emitter::complete);
+
+                        // 8. 浏览器断开、超时或出错时取消上游请求，释放 AI 服务连接
+                        emitter.onCompletion(upstream::dispose);
+                        emitter.onTimeout(upstream::dispose);
+                        emitter.onError(e -> upstream.dispose());
+                } catch (RuntimeException e) {
+                        permit.release();
+                        throw e;
+                }
+
+                return ResponseEntity.ok()
+                                .header(CONVERSATION_ID_HEADER, conversationId)
+                                .body(emitter);
+        }
+
+        private static List<ConversationStore.Message> toMessages(List<HistoryMessage> history) {
+                if (history == null) {
+                        return List.of();
+                }
+                return history.stream().map(h -> new ConversationStore.Message(h.role(), h.content())).toList();
+        }
+
+        /** 快照构建失败时返回 null，由 Python 端回退为直接查库 */
+        private FinancialSnapshot snapshot(Long userId) {
+                try {
+                        return snapshotService.forUser(userId);
+                } catch (RuntimeException e) {
+                        logger.warn("Financial snapshot failed for userId={}: {}", userId, e.getMessage());
+                        return null;
+                }
+        }
+
+        private static void send(SseEmitter emitter, String data) {
+                try {
+                        emitter.send(data);
+                } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                }
+        }
+
+        private static void fail(SseEmitter emitter, Long userId, Throwable error) {
+                if (error instanceof UncheckedIOException || error instanceof IllegalStateException) {
+                        // 浏览器已断开或 emitter 已结束，无法再发送错误事件
+                        logger.debug("AI chat client gone: userId={}: {}", userId, error.getMessage());
+                        emitter.completeWithError(error);
+                        return;
+                }
+                logger.error("AI service proxy error for userId={}: {}", userId, error.getMessage());
+                try {
+                        emitter.send(SseEmitter.event().data(
+                                        Map.of("type", "error", "content", "AI 服务请求错误：" + error.getMessage()),
+                                        MediaType.APPLICATION_JSON));
+                        emitter.complete();
+                } catch (Exception ex) {
+                        emitter.completeWithError(ex);
+                }
         }
 
         /**
          * GET /api/ai/health
-         * 检查 AI 微服务是否在线（用于前端显示"AI 助手状态"提示）
+         * 返回后台探测缓存的 AI 微服务状态（用于前端显示"AI 助手状态"提示），不发起任何请求
          */
         @GetMapping("/health")
         public ResponseEntity<Map<String, Object>> checkAiHealth() {
-                try {
-                        Map<String, Object> result = webClient.get()
-                                        .uri(aiServiceUrl + "/health")
-                                        .retrieve()
-                                        .bodyToMono(Map.class)
-                                        .timeout(java.time.Duration.ofSeconds(3))
-                                        .block();
-                        return ResponseEntity.ok(Map.of("status", "ok", "aiService", result));
-                } catch (Exception e) {
-                        logger.warn("AI service health check failed: {}", e.getMessage());
-                        return ResponseEntity.ok(Map.of("status", "offline", "message", "AI 服务未启动"));
+                AiServiceHealth.Status status = aiServiceHealth.status();
+                if (status.up()) {
+                        return ResponseEntity.ok(Map.of("status", "ok", "aiService", status.details(),
+                                        "checkedAt", status.checkedAt()));
                 }
+                return ResponseEntity.ok(Map.of("status", "offline", "message",
+                                status.checkedAt() == null ? "AI 服务状态检测中" : "AI 服务未启动"));
         }
 }
@@ -7,11 +7,18 @@ import com.cashflow.app.payload.request.SignupRequest;
 import com.cashflow.app.payload.response.JwtResponse;
 import com.cashflow.app.payload.response.MessageResponse;
 import com.cashflow.app.repository.UserRepository;
+import com.cashflow.app.security.PasswordHashBusyException;
 import com.cashflow.app.security.jwt.JwtUtils;
 import com.cashflow.app.security.services.UserDetailsImpl;
-import com.cashflow.app.service.NotificationService;
+import com.cashflow.app.service.NotificationDispatcher;
 import com.cashflow.app.service.VerificationCodeService;
+import com.cashflow.app.service.VerificationRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -20,12 +27,12 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api")
 public class AuthController {
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
+
     @Autowired
     AuthenticationManager authenticationManager;
 
@@ -42,7 +49,10 @@ public class AuthController {
     VerificationCodeService verificationCodeService;
 
     @Autowired
-    List<NotificationService> notificationServices;
+    VerificationRateLimiter verificationRateLimiter;
+
+    @Autowired
+    NotificationDispatcher notificationDispatcher;
 
     @PostMapping("/auth/login")
     public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest) {
@@ -72,29 +82,44 @@ public class AuthController {
     }
 
     @PostMapping("/auth/send-code")
-    public ResponseEntity<?> sendVerificationCode(@RequestBody CodeRequest codeRequest) {
-        String target = codeRequest.getTarget();
+    public ResponseEntity<?> sendVerificationCode(@RequestBody CodeRequest codeRequest, HttpServletRequest request) {
+        String target = VerificationCodeService.normalize(codeRequest.getTarget());
         String method = codeRequest.getMethod(); // EMAIL or PHONE
 
         if (target == null || target.isEmpty()) {
             return ResponseEntity.badRequest().body(new MessageResponse("Error: Target (email/phone) is required"));
         }
 
-        // Generate code
-        String code = verificationCodeService.generateCode(target);
+        if (!notificationDispatcher.supports(method)) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Unsupported registration method"));
+        }
 
-        // Find appropriate service
-        NotificationService service = notificationServices.stream()
-                .filter(s -> s.supports(method))
-                .findFirst()
-                .orElse(null);
+        // Rate limit per client IP and per target
+        long retryAfter = verificationRateLimiter.tryAcquire(target, request.getRemoteAddr());
+        if (retryAfter > 0) {
+            logger.warn("Verification code rejected (rate limit): ip={}", request.getRemoteAddr());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body(new MessageResponse("Error: Too many verification code requests, please retry later"));
+        }
 
-        if (service == null) {
-            return ResponseEntity.badRequest().body(new MessageResponse("Error: Unsupported registration method"));
+        // Generate code
+        String code = verificationCodeService.generateCode(target);
+        if (code == null) {
+            verificationRateLimiter.recordRejection(VerificationRateLimiter.Reason.CAPACITY);
+            logger.warn("Verification code rejected (store full)");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "60")
+                    .body(new MessageResponse("Error: Verification service is busy, please retry later"));
         }
 
-        // Send code
-        service.sendVerificationCode(target, code);
+        // Queue the code; the dispatcher sends and retries it in the background
+        if (!notificationDispatcher.dispatch(method, target, code)) {
+            logger.warn("Verification code rejected (notification queue full): method={}", method);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "10")
+                    .body(new MessageResponse("Error: Verification service is busy, please retry later"));
+        }
 
         return ResponseEntity.ok(new MessageResponse("Verification code sent successfully (Mock)"));
     }
@@ -113,9 +138,6 @@ public class AuthController {
                 ? signUpRequest.getEmail()
                 : signUpRequest.getPhone();
 
-        System.out.println("[DEBUG] Registration request - Method: [" + signUpRequest.getRegistrationMethod()
-                + "], Target: [" + target + "]");
-
         if (target == null || target.isEmpty()) {
             return ResponseEntity.badRequest()
                     .body(new MessageResponse("Error: Email or Phone is required for the chosen registration method"));
@@ -143,4 +165,13 @@ public class AuthController {
 
         return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
     }
+
+    // Password-hash pool saturated (login/registration storm)
+    @ExceptionHandler(PasswordHashBusyException.class)
+    public ResponseEntity<MessageResponse> passwordHashBusy(PasswordHashBusyException e) {
+        logger.warn("Auth request rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "2")
+                .body(new MessageResponse("Error: Server is busy, please retry later"));
+    }
 }
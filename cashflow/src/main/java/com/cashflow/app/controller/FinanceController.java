@@ -1,30 +1,60 @@
 package com.cashflow.app.controller;
 
 import com.cashflow.app.entity.BalanceSheetItem;
+import com.cashflow.app.entity.CashFlowSummary;
 import com.cashflow.app.entity.IncomeExpenseItem;
 import com.cashflow.app.entity.Report;
-import com.cashflow.app.entity.User;
+import com.cashflow.app.payload.request.ItemBatchRequest;
+import com.cashflow.app.payload.response.BalanceSheetItemView;
+import com.cashflow.app.payload.response.CashFlowTable;
+import com.cashflow.app.payload.response.Dashboard;
+import com.cashflow.app.payload.response.IncomeExpenseItemView;
+import com.cashflow.app.payload.response.ItemBatchResult;
+import com.cashflow.app.payload.response.ReportView;
 import com.cashflow.app.repository.BalanceSheetItemRepository;
 import com.cashflow.app.repository.IncomeExpenseItemRepository;
 import com.cashflow.app.repository.ReportRepository;
 import com.cashflow.app.repository.UserRepository;
+import com.cashflow.app.security.CurrentUserId;
+import com.cashflow.app.security.ReportOwnershipGuard;
+import com.cashflow.app.payload.response.CashFlowHistoryPoint;
+import com.cashflow.app.service.CashFlowHistoryService;
+import com.cashflow.app.service.CashFlowService;
+import com.cashflow.app.service.DashboardService;
+import com.cashflow.app.service.ReportExportService;
+import com.cashflow.app.service.ReportItemService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.HashMap;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/reports")
 public class FinanceController {
 
+    // Browsers keep item views but revalidate them on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     ReportRepository reportRepository;
 
@@ -37,86 +67,178 @@ public class FinanceController {
     @Autowired
     UserRepository userRepository;
 
-    private User getCurrentUser() {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        return userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    @Autowired
+    CashFlowService cashFlowService;
+
+    @Autowired
+    CashFlowHistoryService cashFlowHistoryService;
+
+    @Autowired
+    ReportExportService reportExportService;
+
+    @Autowired
+    DashboardService dashboardService;
+
+    @Autowired
+    ReportItemService reportItemService;
+
+    // Ownership of /{reportId}/** is enforced by ReportOwnershipInterceptor before any handler below runs
+    @Autowired
+    ReportOwnershipGuard reportOwnershipGuard;
+
+    /**
+     * Answers 304 when the client's If-None-Match still matches the report version, so
+     * an unchanged view costs one primary-key read; otherwise builds the response from
+     * an OK builder that already carries the ETag.
+     */
+    private <T> ResponseEntity<T> conditionalGet(Long reportId, WebRequest request,
+            Function<ResponseEntity.BodyBuilder, ResponseEntity<T>> response) {
+        String etag = "\"" + reportId + "-" + cashFlowService.version(reportId) + "\"";
+        if (request.checkNotModified(etag)) {
+            // checkNotModified has already set the ETag header
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+        return response.apply(ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE));
+    }
+
+    /**
+     * Trims a keyset page fetched with {@code size + 1} rows and adds the
+     * {@code X-Total-Count} and, unless this is the last page, {@code X-Next-Cursor} headers.
+     */
+    private static <T> ResponseEntity<List<T>> page(ResponseEntity.BodyBuilder ok, List<T> rows, int size,
+            long total, Function<T, String> cursorOf) {
+        ok.header("X-Total-Count", String.valueOf(total));
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            ok.header("X-Next-Cursor", cursorOf.apply(rows.get(size - 1)));
+        }
+        return ok.body(rows);
     }
 
-    private Report validateReportOwnership(Long reportId) {
-        Report report = reportRepository.findById(reportId)
-                .orElseThrow(() -> new RuntimeException("Report not found"));
-        if (!report.getUser().getId().equals(getCurrentUser().getId())) {
-            throw new RuntimeException("Unauthorized: You do not own this report");
+    private static int pageSize(Integer limit) {
+        return limit == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+    }
+
+    /** Position after the last row of a page: {@code CATEGORY:id}. */
+    private record ItemCursor<C extends Enum<C>>(C category, Long id) {
+
+        static <C extends Enum<C>> ItemCursor<C> parse(String cursor, Class<C> categoryType) {
+            if (cursor == null || cursor.isEmpty()) {
+                return new ItemCursor<>(null, null);
+            }
+            int colon = cursor.indexOf(':');
+            try {
+                return new ItemCursor<>(Enum.valueOf(categoryType, cursor.substring(0, colon)),
+                        Long.parseLong(cursor.substring(colon + 1)));
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor " + cursor);
+            }
+        }
+
+        static String format(Enum<?> category, Long id) {
+            return category.name() + ":" + id;
         }
-        return report;
     }
 
     // ===== Reports =====
 
     @GetMapping
-    public List<Report> getReports() {
-        return reportRepository.findByUserId(getCurrentUser().getId());
+    public List<ReportView> getReports(@CurrentUserId Long userId) {
+        return reportRepository.findViewsByUserId(userId);
+    }
+
+    /**
+     * Report list, items and cash flow of one report page in a single round trip,
+     * for {@code ?reportId=} or else the user's first report.
+     */
+    @GetMapping("/dashboard")
+    public Dashboard getDashboard(@CurrentUserId Long userId, @RequestParam(required = false) Long reportId) {
+        return dashboardService.load(userId, reportId);
     }
 
     @PostMapping
-    public ResponseEntity<?> createReport(@RequestBody Report report) {
-        User currentUser = getCurrentUser();
+    public ResponseEntity<?> createReport(@CurrentUserId Long userId, @RequestBody Report report) {
         // Enforce limit: 1 Personal, 1 Family per user
-        if (reportRepository.existsByUserIdAndType(currentUser.getId(), report.getType())) {
+        if (reportRepository.existsByUserIdAndType(userId, report.getType())) {
             return ResponseEntity.badRequest().body("Error: You already have a report of type " + report.getType());
         }
 
-        report.setUser(currentUser);
-        return ResponseEntity.ok(reportRepository.save(report));
+        report.setUser(userRepository.getReferenceById(userId));
+        Report savedReport = reportRepository.save(report);
+        cashFlowService.rebuild(savedReport.getId());
+        reportOwnershipGuard.evict(userId);
+        return ResponseEntity.ok(ReportView.of(savedReport));
     }
 
-    @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteReport(@PathVariable Long id) {
-        // Validate ownership
-        Report report = reportRepository.findById(id).orElseThrow(() -> new RuntimeException("Report not found"));
-        if (!report.getUser().getId().equals(getCurrentUser().getId())) {
-            return ResponseEntity.status(403).body("Unauthorized");
-        }
-        reportRepository.deleteById(id);
+    @DeleteMapping("/{reportId}")
+    @Transactional
+    public ResponseEntity<?> deleteReport(@CurrentUserId Long userId, @PathVariable Long reportId) {
+        cashFlowService.delete(reportId);
+        cashFlowHistoryService.delete(reportId);
+        reportRepository.deleteById(reportId);
+        reportOwnershipGuard.evict(userId);
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Streams all items of a report plus its cash-flow totals, {@code ?format=csv} (default)
+     * or {@code ?format=ndjson}.
+     */
+    @GetMapping("/{reportId}/export")
+    public ResponseEntity<StreamingResponseBody> exportReport(@PathVariable Long reportId,
+            @RequestParam(defaultValue = "csv") String format) {
+        ReportExportService.Format exportFormat;
+        try {
+            exportFormat = ReportExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format " + format);
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("report-" + reportId + "." + exportFormat.extension).build().toString())
+                .body(reportExportService.export(reportId, exportFormat));
+    }
+
     // ===== Balance Sheet =====
 
+    /**
+     * One page of items ordered by (category, id), {@value #DEFAULT_PAGE_SIZE} unless
+     * {@code limit} says otherwise; follow {@code X-Next-Cursor} for the next one. The
+     * dashboard endpoint returns the full lists.
+     */
     @GetMapping("/{reportId}/balance-sheet")
-    public List<BalanceSheetItem> getBalanceSheet(@PathVariable Long reportId) {
-        return balanceSheetItemRepository.findByReportId(reportId);
+    public ResponseEntity<List<BalanceSheetItemView>> getBalanceSheet(@PathVariable Long reportId,
+            @RequestParam(required = false) BalanceSheetItem.Category category,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
+        return conditionalGet(reportId, request, ok -> {
+            ItemCursor<BalanceSheetItem.Category> after = ItemCursor.parse(cursor, BalanceSheetItem.Category.class);
+            int size = pageSize(limit);
+            List<BalanceSheetItemView> rows = balanceSheetItemRepository.findPage(reportId, category,
+                    after.category(), after.id(), Limit.of(size + 1));
+            return page(ok, rows, size, balanceSheetItemRepository.countPage(reportId, category),
+                    item -> ItemCursor.format(item.category(), item.id()));
+        });
     }
 
     @PostMapping("/{reportId}/balance-sheet")
-    public BalanceSheetItem addBalanceSheetItem(@PathVariable Long reportId, @RequestBody BalanceSheetItem item) {
-        Report report = validateReportOwnership(reportId);
-        item.setReport(report);
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public BalanceSheetItemView addBalanceSheetItem(@PathVariable Long reportId, @RequestBody BalanceSheetItem item) {
+        item.setReport(reportRepository.getReferenceById(reportId));
         BalanceSheetItem savedItem = balanceSheetItemRepository.save(item);
 
-        // Sync with Income/Expense if a matching name exists
-        incomeExpenseItemRepository.findByReportId(reportId).stream()
-                .filter(ie -> ie.getName().equals(item.getName()))
-                .findFirst()
-                .ifPresent(ie -> {
-                    ie.setAmount(item.getAmount());
-                    if (item.getIsInterest() != null) {
-                        ie.setIsInterest(item.getIsInterest());
-                    }
-                    if (item.getInterestAmount() != null) {
-                        ie.setInterestAmount(item.getInterestAmount());
-                    }
-                    incomeExpenseItemRepository.save(ie);
-                });
-
-        return savedItem;
+        reportItemService.syncByName(reportId, List.of(item), List.of());
+        cashFlowService.refresh(reportId);
+        return BalanceSheetItemView.of(savedItem);
     }
 
     @PutMapping("/{reportId}/balance-sheet/{itemId}")
-    public BalanceSheetItem updateBalanceSheetItem(@PathVariable Long reportId, @PathVariable Long itemId,
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public BalanceSheetItemView updateBalanceSheetItem(@PathVariable Long reportId, @PathVariable Long itemId,
             @RequestBody BalanceSheetItem itemDetails) {
-        validateReportOwnership(reportId);
         BalanceSheetItem item = balanceSheetItemRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("Item not found"));
         // Double check item belongs to report
@@ -132,71 +254,60 @@ public class FinanceController {
 
         BalanceSheetItem savedItem = balanceSheetItemRepository.save(item);
 
-        // Sync with Income/Expense if a matching name exists
-        incomeExpenseItemRepository.findByReportId(reportId).stream()
-                .filter(ie -> ie.getName().equals(item.getName()))
-                .findFirst()
-                .ifPresent(ie -> {
-                    ie.setAmount(item.getAmount());
-                    if (item.getIsInterest() != null) {
-                        ie.setIsInterest(item.getIsInterest());
-                    }
-                    if (item.getInterestAmount() != null) {
-                        ie.setInterestAmount(item.getInterestAmount());
-                    }
-                    incomeExpenseItemRepository.save(ie);
-                });
-
-        return savedItem;
+        reportItemService.syncByName(reportId, List.of(item), List.of());
+        cashFlowService.refresh(reportId);
+        return BalanceSheetItemView.of(savedItem);
     }
 
     @DeleteMapping("/{reportId}/balance-sheet/{itemId}")
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public ResponseEntity<?> deleteBalanceSheetItem(@PathVariable Long reportId, @PathVariable Long itemId) {
-        validateReportOwnership(reportId);
         BalanceSheetItem item = balanceSheetItemRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("Item not found"));
         if (!item.getReport().getId().equals(reportId)) {
             return ResponseEntity.status(403).body("Unauthorized");
         }
         balanceSheetItemRepository.deleteById(itemId);
+        cashFlowService.refresh(reportId);
         return ResponseEntity.ok().build();
     }
 
     // ===== Income / Expense =====
 
+    /** One page of items, optionally filtered by {@code type}, as for the balance sheet. */
     @GetMapping("/{reportId}/income-expense")
-    public List<IncomeExpenseItem> getIncomeExpense(@PathVariable Long reportId) {
-        return incomeExpenseItemRepository.findByReportId(reportId);
+    public ResponseEntity<List<IncomeExpenseItemView>> getIncomeExpense(@PathVariable Long reportId,
+            @RequestParam(required = false) IncomeExpenseItem.Type type,
+            @RequestParam(required = false) IncomeExpenseItem.Category category,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
+        return conditionalGet(reportId, request, ok -> {
+            ItemCursor<IncomeExpenseItem.Category> after = ItemCursor.parse(cursor,
+                    IncomeExpenseItem.Category.class);
+            int size = pageSize(limit);
+            List<IncomeExpenseItemView> rows = incomeExpenseItemRepository.findPage(reportId, type, category,
+                    after.category(), after.id(), Limit.of(size + 1));
+            return page(ok, rows, size, incomeExpenseItemRepository.countPage(reportId, type, category),
+                    item -> ItemCursor.format(item.category(), item.id()));
+        });
     }
 
     @PostMapping("/{reportId}/income-expense")
-    public IncomeExpenseItem addIncomeExpenseItem(@PathVariable Long reportId, @RequestBody IncomeExpenseItem item) {
-        Report report = validateReportOwnership(reportId);
-        item.setReport(report);
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public IncomeExpenseItemView addIncomeExpenseItem(@PathVariable Long reportId, @RequestBody IncomeExpenseItem item) {
+        item.setReport(reportRepository.getReferenceById(reportId));
         IncomeExpenseItem savedItem = incomeExpenseItemRepository.save(item);
 
-        // Sync with Balance Sheet if a matching name exists
-        balanceSheetItemRepository.findByReportId(reportId).stream()
-                .filter(bs -> bs.getName().equals(item.getName()))
-                .findFirst()
-                .ifPresent(bs -> {
-                    bs.setAmount(item.getAmount());
-                    if (item.getIsInterest() != null) {
-                        bs.setIsInterest(item.getIsInterest());
-                    }
-                    if (item.getInterestAmount() != null) {
-                        bs.setInterestAmount(item.getInterestAmount());
-                    }
-                    balanceSheetItemRepository.save(bs);
-                });
-
-        return savedItem;
+        reportItemService.syncByName(reportId, List.of(), List.of(item));
+        cashFlowService.refresh(reportId);
+        return IncomeExpenseItemView.of(savedItem);
     }
 
     @PutMapping("/{reportId}/income-expense/{itemId}")
-    public IncomeExpenseItem updateIncomeExpenseItem(@PathVariable Long reportId, @PathVariable Long itemId,
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public IncomeExpenseItemView updateIncomeExpenseItem(@PathVariable Long reportId, @PathVariable Long itemId,
             @RequestBody IncomeExpenseItem itemDetails) {
-        validateReportOwnership(reportId);
         IncomeExpenseItem item = incomeExpenseItemRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("Item not found"));
         if (!item.getReport().getId().equals(reportId)) {
@@ -212,167 +323,74 @@ public class FinanceController {
 
         IncomeExpenseItem savedItem = incomeExpenseItemRepository.save(item);
 
-        // Sync with Balance Sheet if a matching name exists
-        balanceSheetItemRepository.findByReportId(reportId).stream()
-                .filter(bs -> bs.getName().equals(item.getName()))
-                .findFirst()
-                .ifPresent(bs -> {
-                    bs.setAmount(item.getAmount());
-                    if (item.getIsInterest() != null) {
-                        bs.setIsInterest(item.getIsInterest());
-                    }
-                    if (item.getInterestAmount() != null) {
-                        bs.setInterestAmount(item.getInterestAmount());
-                    }
-                    balanceSheetItemRepository.save(bs);
-                });
-
-        return savedItem;
+        reportItemService.syncByName(reportId, List.of(), List.of(item));
+        cashFlowService.refresh(reportId);
+        return IncomeExpenseItemView.of(savedItem);
     }
 
     @DeleteMapping("/{reportId}/income-expense/{itemId}")
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public ResponseEntity<?> deleteIncomeExpenseItem(@PathVariable Long reportId, @PathVariable Long itemId) {
-        validateReportOwnership(reportId);
         IncomeExpenseItem item = incomeExpenseItemRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("Item not found"));
         if (!item.getReport().getId().equals(reportId)) {
             return ResponseEntity.status(403).body("Unauthorized");
         }
         incomeExpenseItemRepository.deleteById(itemId);
+        cashFlowService.refresh(reportId);
         return ResponseEntity.ok().build();
     }
 
+    // ===== Batch =====
+
+    /**
+     * Creates, updates and deletes items of both sheets in one transaction, e.g.
+     * {@code {"balanceSheet": [{"action": "UPDATE", "id": 7, "item": {...}}], "incomeExpense": [...]}}.
+     * Either every operation is applied or none is.
+     */
+    @PostMapping("/{reportId}/items/batch")
+    public ItemBatchResult applyItemBatch(@PathVariable Long reportId, @RequestBody ItemBatchRequest request) {
+        return reportItemService.applyBatch(reportId, request);
+    }
+
     // ===== Cash Flow Calculation =====
 
+    /**
+     * Cash-flow table of a report. The totals come from the stored summary row;
+     * {@code ?items=false} returns only those, without loading any item.
+     */
     @GetMapping("/{reportId}/cashflow")
-    public ResponseEntity<?> getCashFlow(@PathVariable Long reportId) {
-        validateReportOwnership(reportId);
-        List<IncomeExpenseItem> items = incomeExpenseItemRepository.findByReportId(reportId);
-        List<BalanceSheetItem> bsItems = balanceSheetItemRepository.findByReportId(reportId);
-
-        // 1. Calculate Income
-        // Labor Income (Only from IE)
-        List<IncomeExpenseItem> laborIncomeItems = items.stream()
-                .filter(i -> i.getType() == IncomeExpenseItem.Type.INCOME
-                        && i.getCategory() == IncomeExpenseItem.Category.LABOR_INCOME)
-                .toList();
-        double laborIncome = laborIncomeItems.stream().mapToDouble(IncomeExpenseItem::getAmount).sum();
-
-        // Asset Income (Only from IE Asset Income)
-        Map<String, Double> assetIncomeMap = new HashMap<>();
-        for (IncomeExpenseItem ieItem : items) {
-            if (ieItem.getType() == IncomeExpenseItem.Type.INCOME
-                    && ieItem.getCategory() == IncomeExpenseItem.Category.ASSET_INCOME) {
-                assetIncomeMap.put(ieItem.getName(), ieItem.getAmount());
-            }
-        }
-        double assetIncome = assetIncomeMap.values().stream().mapToDouble(Double::doubleValue).sum();
-
-        // 2. Calculate Expenses
-        // Living Expense (Only from IE)
-        List<IncomeExpenseItem> livingExpenseItems = items.stream()
-                .filter(i -> i.getType() == IncomeExpenseItem.Type.EXPENSE
-                        && i.getCategory() == IncomeExpenseItem.Category.LIVING_EXPENSE)
-                .toList();
-        double livingExpense = livingExpenseItems.stream().mapToDouble(IncomeExpenseItem::getAmount).sum();
-
-        // Interest Expense (General IE Interest only, excluding BS debt interest)
-        List<BalanceSheetItem> bsDebts = bsItems.stream()
-                .filter(i -> i.getCategory() == BalanceSheetItem.Category.CONSUMER_DEBT ||
-                        i.getCategory() == BalanceSheetItem.Category.INVESTMENT_DEBT ||
-                        i.getCategory() == BalanceSheetItem.Category.PERSONAL_DEBT)
-                .toList();
-
-        Set<String> debtNames = bsDebts.stream().map(BalanceSheetItem::getName).collect(Collectors.toSet());
-
-        Map<String, Double> interestExpenseMap = new HashMap<>();
-        for (IncomeExpenseItem ieItem : items) {
-            if (ieItem.getType() == IncomeExpenseItem.Type.EXPENSE && Boolean.TRUE.equals(ieItem.getIsInterest())) {
-                // Only include if NOT a synced BS debt (those go to Asset Expense)
-                if (!debtNames.contains(ieItem.getName())) {
-                    interestExpenseMap.put(ieItem.getName(), ieItem.getAmount());
-                }
-            }
-        }
-        double interestExpense = interestExpenseMap.values().stream().mapToDouble(Double::doubleValue).sum();
-
-        // Asset Expense (Merged BS Debt Interest + Non-Debt IE Asset Expense)
-        Map<String, Double> assetExpenseMap = new HashMap<>();
-        // 1. Add interest from BS debts
-        for (BalanceSheetItem debt : bsDebts) {
-            if (Boolean.TRUE.equals(debt.getIsInterest()) && debt.getInterestAmount() != null
-                    && debt.getInterestAmount() > 0) {
-                assetExpenseMap.put(debt.getName() + " (利息)", debt.getInterestAmount());
-            }
-        }
-        // 2. Add other IE asset expenses that are NOT debt principal
-        for (IncomeExpenseItem ieItem : items) {
-            if (ieItem.getType() == IncomeExpenseItem.Type.EXPENSE &&
-                    (ieItem.getCategory() == IncomeExpenseItem.Category.ASSET_EXPENSE ||
-                            ieItem.getCategory() == IncomeExpenseItem.Category.LOAN_REPAYMENT)) {
-
-                // If it's a debt, only include it if it's specifically marked as interest (and
-                // not already added)
-                if (debtNames.contains(ieItem.getName())) {
-                    if (Boolean.TRUE.equals(ieItem.getIsInterest()) && ieItem.getInterestAmount() != null
-                            && ieItem.getInterestAmount() > 0) {
-                        assetExpenseMap.put(ieItem.getName(), ieItem.getInterestAmount());
-                    }
-                    // Else: It's principal repayment, exclude from cash flow as per requirement
-                } else {
-                    // It's a general asset purchase or loan repayment not in BS
-                    assetExpenseMap.put(ieItem.getName(), ieItem.getAmount());
-                }
-            }
-        }
-        double assetExpense = assetExpenseMap.values().stream().mapToDouble(Double::doubleValue).sum();
-
-        // 3. Totals
-        double totalIncome = laborIncome + assetIncome;
-        double totalExpense = livingExpense + interestExpense + assetExpense;
-        double netCashFlow = totalIncome - totalExpense;
-
-        // 4. Prepare Response
-        List<Map<String, Object>> assetIncomeDisplayItems = assetIncomeMap.entrySet().stream()
-                .map(e -> {
-                    Map<String, Object> m = new HashMap<>();
-                    m.put("name", e.getKey());
-                    m.put("amount", e.getValue());
-                    return m;
-                }).toList();
-        List<Map<String, Object>> assetExpenseDisplayItems = assetExpenseMap.entrySet().stream()
-                .map(e -> {
-                    Map<String, Object> m = new HashMap<>();
-                    m.put("name", e.getKey());
-                    m.put("amount", e.getValue());
-                    return m;
-                }).toList();
-        List<Map<String, Object>> interestDisplayItems = interestExpenseMap.entrySet().stream()
-                .map(e -> {
-                    Map<String, Object> m = new HashMap<>();
-                    m.put("name", e.getKey());
-                    m.put("amount", e.getValue());
-                    return m;
-                }).toList();
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("totalIncome", totalIncome);
-        result.put("totalExpense", totalExpense);
-        result.put("monthlyCashFlow", netCashFlow);
-
-        result.put("laborIncome", laborIncome);
-        result.put("assetIncome", assetIncome);
-        result.put("livingExpense", livingExpense);
-        result.put("interestExpense", interestExpense);
-        result.put("assetExpense", assetExpense);
-
-        result.put("laborIncomeItems", laborIncomeItems);
-        result.put("assetIncomeItems", assetIncomeDisplayItems);
-        result.put("livingExpenseItems", livingExpenseItems);
-        result.put("interestExpenseItems", interestDisplayItems);
-        result.put("assetExpenseItems", assetExpenseDisplayItems);
-        result.put("excludedItems", List.of());
-
-        return ResponseEntity.ok(result);
+    public ResponseEntity<CashFlowTable> getCashFlow(@PathVariable Long reportId,
+            @RequestParam(defaultValue = "true") boolean items, WebRequest request) {
+        return conditionalGet(reportId, request, ok -> ok.body(cashFlowService.calculate(reportId, items)));
+    }
+
+    /**
+     * Monthly cash-flow history, e.g. {@code ?from=2024-01&to=2026-12&granularity=QUARTER}.
+     * Defaults to the last twelve months by month.
+     */
+    @GetMapping("/{reportId}/cashflow/history")
+    public List<CashFlowHistoryPoint> getCashFlowHistory(@PathVariable Long reportId,
+            @RequestParam(required = false) YearMonth from,
+            @RequestParam(required = false) YearMonth to,
+            @RequestParam(defaultValue = "MONTH") CashFlowHistoryService.Granularity granularity) {
+        YearMonth end = to != null ? to : YearMonth.now();
+        YearMonth start = from != null ? from : end.minusMonths(11);
+        return cashFlowHistoryService.history(reportId, start, end, granularity);
+    }
+
+    @GetMapping("/{reportId}/cashflow/summary")
+    public CashFlowSummary getCashFlowSummary(@PathVariable Long reportId) {
+        return cashFlowService.getSummary(reportId);
+    }
+
+    @PostMapping("/{reportId}/cashflow/summary/rebuild")
+    public CashFlowSummary rebuildCashFlowSummary(@PathVariable Long reportId) {
+        return cashFlowService.rebuild(reportId);
+    }
+
+    @GetMapping("/{reportId}/cashflow/summary/check")
+    public Map<String, Object> checkCashFlowSummary(@PathVariable Long reportId) {
+        return cashFlowService.check(reportId);
     }
 }
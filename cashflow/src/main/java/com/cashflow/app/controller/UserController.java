@@ -3,12 +3,14 @@ package com.cashflow.app.controller;
 import com.cashflow.app.entity.User;
 import com.cashflow.app.payload.response.MessageResponse;
 import com.cashflow.app.repository.UserRepository;
+import com.cashflow.app.security.CurrentUserId;
+import com.cashflow.app.security.services.PrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Objects;
+
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/user")
@@ -17,16 +19,18 @@ public class UserController {
     @Autowired
     UserRepository userRepository;
 
-    private User getCurrentUser() {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        return userRepository.findByUsername(userDetails.getUsername())
+    @Autowired
+    PrincipalCache principalCache;
+
+    private User getCurrentUser(Long userId) {
+        return userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
     @GetMapping("/profile")
-    public ResponseEntity<?> getUserProfile() {
+    public ResponseEntity<?> getUserProfile(@CurrentUserId Long userId) {
         try {
-            User user = getCurrentUser();
+            User user = getCurrentUser(userId);
             return ResponseEntity.ok(user);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
@@ -34,9 +38,12 @@ public class UserController {
     }
 
     @PutMapping("/profile")
-    public ResponseEntity<?> updateUserProfile(@RequestBody User profileData) {
+    public ResponseEntity<?> updateUserProfile(@CurrentUserId Long userId, @RequestBody User profileData) {
         try {
-            User user = getCurrentUser();
+            User user = getCurrentUser(userId);
+            String oldUsername = user.getUsername();
+            String oldEmail = user.getEmail();
+            String oldPhone = user.getPhone();
 
             // Update fields
             if (profileData.getEmail() != null) {
@@ -63,6 +70,13 @@ public class UserController {
             }
 
             userRepository.save(user);
+
+            // Cached principals are keyed by the username in the token
+            if (!Objects.equals(oldUsername, user.getUsername()) || !Objects.equals(oldEmail, user.getEmail())
+                    || !Objects.equals(oldPhone, user.getPhone())) {
+                principalCache.invalidate(oldUsername);
+                principalCache.invalidate(user.getUsername());
+            }
             return ResponseEntity.ok(new MessageResponse("Profile updated successfully!"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
@@ -1,15 +1,23 @@
 package com.cashflow.app.entity;
 
+import com.cashflow.app.config.ItemIdGenerators;
 import jakarta.persistence.*;
 import lombok.Data;
 
 @Data
 @Entity
-@com.fasterxml.jackson.annotation.JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
-@Table(name = "balance_sheet_items")
+@Table(name = "balance_sheet_items", indexes = {
+        @Index(name = "idx_bs_report_name", columnList = "report_id, name"),
+        @Index(name = "idx_bs_report_category", columnList = "report_id, category, id")
+})
 public class BalanceSheetItem {
+    // Ids are handed out 50 at a time from id_generators (see ItemIdGenerators), so
+    // inserts can be batched; IDENTITY would force one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "balance_sheet_items")
+    @TableGenerator(name = "balance_sheet_items", table = ItemIdGenerators.TABLE, pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "balance_sheet_items",
+            allocationSize = ItemIdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,46 @@
+package com.cashflow.app.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cash-flow totals of one report for one calendar month. The current month's row is
+ * overwritten by every capture run, so past months keep their last captured values.
+ */
+@Data
+@Entity
+@Table(name = "cash_flow_snapshots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_snapshot_report_month", columnNames = { "report_id", "period_month" })
+})
+public class CashFlowSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "report_id", nullable = false)
+    private Long reportId;
+
+    // yyyyMM, e.g. 202610
+    @Column(name = "period_month", nullable = false)
+    private Integer periodMonth;
+
+    @Column(nullable = false)
+    private Double laborIncome;
+
+    @Column(nullable = false)
+    private Double assetIncome;
+
+    @Column(nullable = false)
+    private Double livingExpense;
+
+    @Column(nullable = false)
+    private Double interestExpense;
+
+    @Column(nullable = false)
+    private Double assetExpense;
+
+    @Column(nullable = false)
+    private LocalDateTime capturedAt;
+}
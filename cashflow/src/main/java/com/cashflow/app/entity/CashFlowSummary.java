@@ -0,0 +1,61 @@
+package com.cashflow.app.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Persisted cash-flow totals of one report, refreshed in the same transaction as
+ * every balance-sheet / income-expense mutation so reads are a single-row lookup.
+ */
+@Data
+@Entity
+@Table(name = "cash_flow_summaries")
+public class CashFlowSummary {
+    @Id
+    @Column(name = "report_id")
+    private Long reportId;
+
+    @Column(nullable = false)
+    private Double laborIncome = 0.0;
+
+    @Column(nullable = false)
+    private Double assetIncome = 0.0;
+
+    @Column(nullable = false)
+    private Double livingExpense = 0.0;
+
+    @Column(nullable = false)
+    private Double interestExpense = 0.0;
+
+    @Column(nullable = false)
+    private Double assetExpense = 0.0;
+
+    // Names of BS debt items; IE rows with these names count as debt repayments
+    @Convert(converter = StringSetConverter.class)
+    @Column(name = "debt_names", columnDefinition = "TEXT")
+    private Set<String> debtNames = new LinkedHashSet<>();
+
+    // Bumped by every refresh, i.e. by every item mutation; the ETag of the report's item views
+    @Column(nullable = false)
+    private long version;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    public double getTotalIncome() {
+        return laborIncome + assetIncome;
+    }
+
+    public double getTotalExpense() {
+        return livingExpense + interestExpense + assetExpense;
+    }
+
+    public double getMonthlyCashFlow() {
+        return getTotalIncome() - getTotalExpense();
+    }
+}
@@ -1,15 +1,22 @@
 package com.cashflow.app.entity;
 
+import com.cashflow.app.config.ItemIdGenerators;
 import jakarta.persistence.*;
 import lombok.Data;
 
 @Data
 @Entity
-@com.fasterxml.jackson.annotation.JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
-@Table(name = "income_expense_items")
+@Table(name = "income_expense_items", indexes = {
+        @Index(name = "idx_ie_report_name", columnList = "report_id, name"),
+        @Index(name = "idx_ie_report_category", columnList = "report_id, category, id")
+})
 public class IncomeExpenseItem {
+    // Batch-friendly ids, see BalanceSheetItem
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "income_expense_items")
+    @TableGenerator(name = "income_expense_items", table = ItemIdGenerators.TABLE, pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "income_expense_items",
+            allocationSize = ItemIdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,34 @@
+package com.cashflow.app.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A verification code that could not be delivered after all retries. The code itself
+ * is not kept; the row records who missed a message and why.
+ */
+@Data
+@Entity
+@Table(name = "notification_dead_letters")
+public class NotificationDeadLetter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 16)
+    private String channel;
+
+    @Column(nullable = false)
+    private String target;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
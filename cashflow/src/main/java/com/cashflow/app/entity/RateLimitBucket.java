@@ -0,0 +1,25 @@
+package com.cashflow.app.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Token bucket state shared by all backend instances when
+ * {@code app.verification.store=database}, kept as the time at which the bucket is
+ * full again. Rows whose {@code fullAt} has passed carry no state and are swept.
+ */
+@Data
+@Entity
+@Table(name = "rate_limit_buckets", indexes = {
+        @Index(name = "idx_rlb_full_at", columnList = "full_at")
+})
+public class RateLimitBucket {
+    // e.g. "ip:203.0.113.7" or "id:user@example.com"
+    @Id
+    @Column(name = "bucket_key", length = 300)
+    private String key;
+
+    // Epoch millis
+    @Column(name = "full_at", nullable = false)
+    private long fullAt;
+}
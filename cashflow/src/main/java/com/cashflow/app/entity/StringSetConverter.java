@@ -0,0 +1,35 @@
+package com.cashflow.app.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Stores a set of item names as one newline-separated TEXT column, so the
+ * owning row can be read without a join.
+ */
+@Converter
+public class StringSetConverter implements AttributeConverter<Set<String>, String> {
+
+    private static final String SEPARATOR = "\n";
+
+    @Override
+    public String convertToDatabaseColumn(Set<String> names) {
+        if (names == null || names.isEmpty()) {
+            return "";
+        }
+        return String.join(SEPARATOR, names);
+    }
+
+    @Override
+    public Set<String> convertToEntityAttribute(String column) {
+        Set<String> names = new LinkedHashSet<>();
+        if (column != null && !column.isEmpty()) {
+            names.addAll(Arrays.asList(column.split(SEPARATOR)));
+        }
+        return names;
+    }
+}
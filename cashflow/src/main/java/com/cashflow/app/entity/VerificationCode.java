@@ -0,0 +1,31 @@
+package com.cashflow.app.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * A pending verification code, shared by all backend instances when
+ * {@code app.verification.store=database}. Rows past {@code expiresAt} are ignored and
+ * swept periodically.
+ */
+@Data
+@Entity
+@Table(name = "verification_codes", indexes = {
+        @Index(name = "idx_vc_expires_at", columnList = "expires_at")
+})
+public class VerificationCode {
+    // Normalized email or phone
+    @Id
+    @Column(length = 255)
+    private String identifier;
+
+    @Column(nullable = false, length = 16)
+    private String code;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Epoch millis
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+}
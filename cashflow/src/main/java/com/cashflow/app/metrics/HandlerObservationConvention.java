@@ -0,0 +1,22 @@
+package com.cashflow.app.metrics;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds a {@code handler} tag ({@code Controller#method}) to the
+ * {@code http.server.requests} timers, so each controller method gets its own timer
+ * even where URI templates are shared.
+ */
+@Component
+public class HandlerObservationConvention extends DefaultServerRequestObservationConvention {
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context)
+                .and(KeyValue.of("handler", RequestMetricsFilter.handlerName(context.getCarrier())));
+    }
+}
@@ -0,0 +1,148 @@
+package com.cashflow.app.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /actuator/performance}: one page answering "where does the time go" —
+ * controller methods by total time with their SQL per request, the most expensive
+ * Hibernate queries, and AI stream latency. Everything is read from meters and
+ * Hibernate statistics that are collected anyway.
+ */
+@Component
+@Endpoint(id = "performance")
+public class PerformanceEndpoint {
+
+    private static final int TOP_QUERIES = 10;
+
+    private final MeterRegistry meterRegistry;
+    private final Statistics statistics;
+
+    public PerformanceEndpoint(MeterRegistry meterRegistry, EntityManagerFactory entityManagerFactory) {
+        this.meterRegistry = meterRegistry;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public Map<String, Object> performance() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("handlers", handlers());
+        result.put("hibernate", hibernate());
+        result.put("aiStream", aiStream());
+        return result;
+    }
+
+    private List<Map<String, Object>> handlers() {
+        return meterRegistry.find("http.server.requests.db").timers().stream()
+                .sorted(Comparator.comparingDouble((Timer t) -> -requests(t.getId().getTag("handler"))
+                        .map(Requests::totalMs).orElse(0.0)))
+                .map(db -> {
+                    String handler = db.getId().getTag("handler");
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("handler", handler);
+                    requests(handler).ifPresent(requests -> {
+                        row.put("count", requests.count());
+                        row.put("totalMs", round(requests.totalMs()));
+                        row.put("meanMs", round(requests.count() == 0 ? 0 : requests.totalMs() / requests.count()));
+                        row.put("maxMs", round(requests.maxMs()));
+                    });
+                    DistributionSummary sql = meterRegistry.find("http.server.requests.sql")
+                            .tag("handler", handler).summary();
+                    row.put("sqlPerRequest", sql != null ? round(sql.mean()) : null);
+                    row.put("sqlMaxPerRequest", sql != null ? round(sql.max()) : null);
+                    row.put("dbMsPerRequest", round(db.mean(TimeUnit.MILLISECONDS)));
+                    return row;
+                })
+                .toList();
+    }
+
+    // All http.server.requests timers of one handler (one per status/outcome), merged
+    private Optional<Requests> requests(String handler) {
+        Collection<Timer> timers = meterRegistry.find("http.server.requests").tag("handler", handler).timers();
+        if (timers.isEmpty()) {
+            return Optional.empty();
+        }
+        long count = 0;
+        double total = 0;
+        double max = 0;
+        for (Timer timer : timers) {
+            count += timer.count();
+            total += timer.totalTime(TimeUnit.MILLISECONDS);
+            max = Math.max(max, timer.max(TimeUnit.MILLISECONDS));
+        }
+        return Optional.of(new Requests(count, total, max));
+    }
+
+    private Map<String, Object> hibernate() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        if (!statistics.isStatisticsEnabled()) {
+            return result;
+        }
+        result.put("statementsPrepared", statistics.getPrepareStatementCount());
+        result.put("queriesExecuted", statistics.getQueryExecutionCount());
+        result.put("entitiesLoaded", statistics.getEntityLoadCount());
+        result.put("entitiesFetched", statistics.getEntityFetchCount());
+        result.put("collectionsFetched", statistics.getCollectionFetchCount());
+        result.put("transactions", statistics.getTransactionCount());
+        result.put("slowestQueryMs", statistics.getQueryExecutionMaxTime());
+        result.put("slowestQuery", statistics.getQueryExecutionMaxTimeQueryString());
+        result.put("topQueriesByTotalTime", Arrays.stream(statistics.getQueries())
+                .map(query -> Map.entry(query, statistics.getQueryStatistics(query)))
+                .sorted(Comparator.comparingLong((Map.Entry<String, QueryStatistics> e) -> -e.getValue()
+                        .getExecutionTotalTime()))
+                .limit(TOP_QUERIES)
+                .map(e -> {
+                    QueryStatistics stats = e.getValue();
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("query", e.getKey());
+                    row.put("executions", stats.getExecutionCount());
+                    row.put("totalMs", stats.getExecutionTotalTime());
+                    row.put("meanMs", stats.getExecutionAvgTime());
+                    row.put("maxMs", stats.getExecutionMaxTime());
+                    row.put("rows", stats.getExecutionRowCount());
+                    return row;
+                })
+                .toList());
+        return result;
+    }
+
+    private Map<String, Object> aiStream() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Timer ttft = meterRegistry.find("ai.chat.ttft").timer();
+        if (ttft != null) {
+            result.put("streams", ttft.count());
+            result.put("ttftMeanMs", round(ttft.mean(TimeUnit.MILLISECONDS)));
+            result.put("ttftMaxMs", round(ttft.max(TimeUnit.MILLISECONDS)));
+        }
+        DistributionSummary throughput = meterRegistry.find("ai.chat.stream.throughput").summary();
+        if (throughput != null) {
+            result.put("bytesPerSecondMean", round(throughput.mean()));
+        }
+        return result;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private record Requests(long count, double totalMs, double maxMs) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.cashflow.app.metrics;
+
+/**
+ * SQL work done on the current request thread, filled in by
+ * {@link SqlMetricsSessionListener} while {@link RequestMetricsFilter} has a request
+ * open. Statements run on other threads (async streams, scheduled jobs) are not
+ * attributed to any request, except tasks handed to the application task executor
+ * (see {@link RequestMetricsTaskDecorator}).
+ */
+public final class RequestMetrics {
+
+    private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long dbNanos;
+
+    private RequestMetrics() {
+    }
+
+    static RequestMetrics begin() {
+        RequestMetrics metrics = new RequestMetrics();
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static RequestMetrics current() {
+        return CURRENT.get();
+    }
+
+    // Binds metrics (or nothing) to the current thread, returning what was bound before
+    static RequestMetrics bind(RequestMetrics metrics) {
+        RequestMetrics previous = CURRENT.get();
+        if (metrics != null) {
+            CURRENT.set(metrics);
+        } else {
+            CURRENT.remove();
+        }
+        return previous;
+    }
+
+    // Synchronized as worker threads of the same request may record concurrently
+    static void recordStatement(long nanos) {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            synchronized (metrics) {
+                metrics.statements++;
+                metrics.dbNanos += nanos;
+            }
+        }
+    }
+
+    public synchronized int statements() {
+        return statements;
+    }
+
+    public synchronized long dbNanos() {
+        return dbNanos;
+    }
+}
@@ -0,0 +1,92 @@
+package com.cashflow.app.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records, per controller method, how many SQL statements a request ran and how long
+ * they took ({@code http.server.requests.sql} / {@code http.server.requests.db}), and
+ * optionally logs requests slower than {@code app.metrics.slow-request.threshold} with
+ * that breakdown. Only the synchronous part of a request is measured; streamed
+ * responses (SSE, exports) finish on other threads.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestMetricsFilter.class);
+
+    static final String NO_HANDLER = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean slowLogEnabled;
+    private final long slowThresholdNanos;
+
+    public RequestMetricsFilter(MeterRegistry meterRegistry,
+            @Value("${app.metrics.slow-request.enabled:false}") boolean slowLogEnabled,
+            @Value("${app.metrics.slow-request.threshold:500ms}") Duration slowThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowLogEnabled = slowLogEnabled;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestMetrics metrics = RequestMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            RequestMetrics.end();
+            String handler = handlerName(request);
+            if (!NO_HANDLER.equals(handler)) {
+                DistributionSummary.builder("http.server.requests.sql")
+                        .description("SQL statements executed per request")
+                        .tag("handler", handler)
+                        .register(meterRegistry)
+                        .record(metrics.statements());
+                Timer.builder("http.server.requests.db")
+                        .description("Time per request spent executing SQL")
+                        .tag("handler", handler)
+                        .register(meterRegistry)
+                        .record(metrics.dbNanos(), TimeUnit.NANOSECONDS);
+            }
+            if (slowLogEnabled && elapsed >= slowThresholdNanos) {
+                logger.warn("Slow request: {} {} -> {} in {} ms (handler {}, {} SQL statements, {} ms in DB{})",
+                        request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), handler, metrics.statements(),
+                        TimeUnit.NANOSECONDS.toMillis(metrics.dbNanos()),
+                        request.isAsyncStarted() ? ", response continues async" : "");
+            }
+        }
+    }
+
+    /** {@code Controller#method} of the handler that served the request, or {@code none}. */
+    static String handlerName(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName() + "#" + method.getMethod().getName();
+        }
+        return NO_HANDLER;
+    }
+}
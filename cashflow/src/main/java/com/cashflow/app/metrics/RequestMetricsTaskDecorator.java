@@ -0,0 +1,30 @@
+package com.cashflow.app.metrics;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries the submitting request's {@link RequestMetrics} over to tasks run on the
+ * application task executor, so queries a handler fans out to worker threads still
+ * count towards its request. Boot applies a single {@link TaskDecorator} bean to that
+ * executor.
+ */
+@Component
+public class RequestMetricsTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics == null) {
+            return runnable;
+        }
+        return () -> {
+            RequestMetrics previous = RequestMetrics.bind(metrics);
+            try {
+                runnable.run();
+            } finally {
+                RequestMetrics.bind(previous);
+            }
+        };
+    }
+}
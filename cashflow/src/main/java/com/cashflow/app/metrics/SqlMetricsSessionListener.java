@@ -0,0 +1,34 @@
+package com.cashflow.app.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Times every JDBC statement and batch Hibernate executes and adds it to the current
+ * {@link RequestMetrics}. Registered for every session through
+ * {@code hibernate.session.events.auto}, so Hibernate creates one per session.
+ */
+public class SqlMetricsSessionListener implements SessionEventListener {
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestMetrics.recordStatement(System.nanoTime() - statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestMetrics.recordStatement(System.nanoTime() - batchStart);
+    }
+}
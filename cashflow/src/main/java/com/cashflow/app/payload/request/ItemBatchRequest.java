@@ -0,0 +1,27 @@
+package com.cashflow.app.payload.request;
+
+import com.cashflow.app.entity.BalanceSheetItem;
+import com.cashflow.app.entity.IncomeExpenseItem;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ItemBatchRequest {
+    private List<Operation<BalanceSheetItem>> balanceSheet = new ArrayList<>();
+    private List<Operation<IncomeExpenseItem>> incomeExpense = new ArrayList<>();
+
+    public enum Action {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    @Data
+    public static class Operation<T> {
+        private Action action;
+        private Long id; // UPDATE and DELETE
+        private T item; // CREATE and UPDATE
+    }
+}
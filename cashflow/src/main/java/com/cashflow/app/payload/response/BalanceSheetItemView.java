@@ -0,0 +1,13 @@
+package com.cashflow.app.payload.response;
+
+import com.cashflow.app.entity.BalanceSheetItem;
+
+/** A balance-sheet item as returned by the API, without its report. */
+public record BalanceSheetItemView(Long id, BalanceSheetItem.Category category, String name, Double amount,
+        String note, Boolean isInterest, Double interestAmount) {
+
+    public static BalanceSheetItemView of(BalanceSheetItem item) {
+        return new BalanceSheetItemView(item.getId(), item.getCategory(), item.getName(), item.getAmount(),
+                item.getNote(), item.getIsInterest(), item.getInterestAmount());
+    }
+}
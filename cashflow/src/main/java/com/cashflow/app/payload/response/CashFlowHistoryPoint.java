@@ -0,0 +1,19 @@
+package com.cashflow.app.payload.response;
+
+/**
+ * Cash flow of one period (month "2026-10", quarter "2026-Q4" or year "2026"). Amounts
+ * are the sum of the monthly snapshots captured in the period; {@code months} says how
+ * many there were, so callers can turn them into monthly averages.
+ */
+public record CashFlowHistoryPoint(
+        String period,
+        int months,
+        double laborIncome,
+        double assetIncome,
+        double livingExpense,
+        double interestExpense,
+        double assetExpense,
+        double totalIncome,
+        double totalExpense,
+        double netCashFlow) {
+}
@@ -0,0 +1,5 @@
+package com.cashflow.app.payload.response;
+
+/** One merged line of the cash-flow table, e.g. an asset income or an expense. */
+public record CashFlowLine(String name, double amount) {
+}
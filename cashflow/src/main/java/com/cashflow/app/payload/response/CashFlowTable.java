@@ -0,0 +1,20 @@
+package com.cashflow.app.payload.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * The cash-flow table of a report. The item and line lists are {@code null}, and
+ * left out of the JSON, when only the totals were requested.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CashFlowTable(double totalIncome, double totalExpense, double monthlyCashFlow,
+        double laborIncome, double assetIncome, double livingExpense, double interestExpense, double assetExpense,
+        List<IncomeExpenseItemView> laborIncomeItems,
+        List<CashFlowLine> assetIncomeItems,
+        List<IncomeExpenseItemView> livingExpenseItems,
+        List<CashFlowLine> interestExpenseItems,
+        List<CashFlowLine> assetExpenseItems,
+        List<IncomeExpenseItemView> excludedItems) {
+}
@@ -0,0 +1,12 @@
+package com.cashflow.app.payload.response;
+
+import java.util.List;
+
+/**
+ * Everything a report page needs in one response: the user's reports and, for the
+ * selected report, its items and cash-flow table. {@code reportId} and the report
+ * parts are {@code null} when the user has no report yet.
+ */
+public record Dashboard(List<ReportView> reports, Long reportId, List<BalanceSheetItemView> balanceSheet,
+        List<IncomeExpenseItemView> incomeExpense, CashFlowTable cashFlow) {
+}
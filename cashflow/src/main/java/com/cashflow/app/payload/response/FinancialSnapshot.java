@@ -0,0 +1,51 @@
+package com.cashflow.app.payload.response;
+
+import com.cashflow.app.entity.BalanceSheetItem;
+import com.cashflow.app.entity.IncomeExpenseItem;
+import com.cashflow.app.entity.User;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.util.List;
+
+/**
+ * A user's financial data as sent to the AI service with each chat. Serialized in
+ * snake_case, the shape the AI service used to read from the database itself.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record FinancialSnapshot(UserInfo user, List<ReportSnapshot> reports) {
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record UserInfo(String username, String email, User.Gender gender, Integer age) {
+    }
+
+    /** One report at one version of its items (see {@code CashFlowSummary#version}). */
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record ReportSnapshot(Long reportId, long version, String reportName, String reportType,
+            BalanceSheet balanceSheet, IncomeExpense incomeExpense, CashFlow cashflow) {
+    }
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record BalanceSheet(double totalAssets, double totalDebts, double netWorth,
+            List<BalanceSheetLine> items) {
+    }
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record BalanceSheetLine(Long id, String name, Double amount, BalanceSheetItem.Category category,
+            String note, Boolean isInterest, Double interestAmount) {
+    }
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record IncomeExpense(List<IncomeExpenseLine> items) {
+    }
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record IncomeExpenseLine(Long id, String name, Double amount, IncomeExpenseItem.Category category,
+            IncomeExpenseItem.Type type, String note, Boolean isInterest, Double interestAmount) {
+    }
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record CashFlow(double totalIncome, double totalExpense, double netCashFlow, double laborIncome,
+            double assetIncome, double livingExpense, double interestExpense, double assetExpense) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.cashflow.app.payload.response;
+
+import com.cashflow.app.entity.IncomeExpenseItem;
+
+/** An income/expense item as returned by the API, without its report. */
+public record IncomeExpenseItemView(Long id, IncomeExpenseItem.Type type, IncomeExpenseItem.Category category,
+        String name, Double amount, Boolean isInterest, Double interestAmount, String note) {
+
+    public static IncomeExpenseItemView of(IncomeExpenseItem item) {
+        return new IncomeExpenseItemView(item.getId(), item.getType(), item.getCategory(), item.getName(),
+                item.getAmount(), item.getIsInterest(), item.getInterestAmount(), item.getNote());
+    }
+}
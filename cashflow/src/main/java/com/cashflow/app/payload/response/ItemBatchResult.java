@@ -0,0 +1,10 @@
+package com.cashflow.app.payload.response;
+
+import java.util.List;
+
+/**
+ * Outcome of an item batch: the saved item for each operation of the request, in the
+ * same order, and {@code null} for deletes.
+ */
+public record ItemBatchResult(List<BalanceSheetItemView> balanceSheet, List<IncomeExpenseItemView> incomeExpense) {
+}
@@ -0,0 +1,13 @@
+package com.cashflow.app.payload.response;
+
+import com.cashflow.app.entity.Report;
+
+import java.time.LocalDateTime;
+
+/** A report as returned by the API, read with a constructor expression instead of the entity. */
+public record ReportView(Long id, Report.ReportType type, String name, LocalDateTime createdAt) {
+
+    public static ReportView of(Report report) {
+        return new ReportView(report.getId(), report.getType(), report.getName(), report.getCreatedAt());
+    }
+}
@@ -1,9 +1,61 @@
 package com.cashflow.app.repository;
 
 import com.cashflow.app.entity.BalanceSheetItem;
+import com.cashflow.app.payload.response.BalanceSheetItemView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BalanceSheetItemRepository extends JpaRepository<BalanceSheetItem, Long> {
-    List<BalanceSheetItem> findByReportId(Long reportId);
+    // Read paths select BalanceSheetItemView rows directly: no entities, proxies or snapshots
+    @Query("select new com.cashflow.app.payload.response.BalanceSheetItemView(i.id, i.category, i.name,"
+            + " i.amount, i.note, i.isInterest, i.interestAmount)"
+            + " from BalanceSheetItem i where i.report.id = :reportId")
+    List<BalanceSheetItemView> findViewsByReportId(@Param("reportId") Long reportId);
+
+    // Name-based BS <-> IE sync, backed by the (report_id, name) index. The first row per
+    // name is the one kept in sync.
+    @Query("select i from BalanceSheetItem i where i.report.id = :reportId and i.name in :names order by i.id")
+    List<BalanceSheetItem> findByReportIdAndNameIn(@Param("reportId") Long reportId,
+            @Param("names") Collection<String> names);
+
+    // Keyset page on (category, id), backed by the (report_id, category, id) index. Pass a null
+    // afterCategory for the first page.
+    @Query("select new com.cashflow.app.payload.response.BalanceSheetItemView(i.id, i.category, i.name,"
+            + " i.amount, i.note, i.isInterest, i.interestAmount)"
+            + " from BalanceSheetItem i where i.report.id = :reportId"
+            + " and (:category is null or i.category = :category)"
+            + " and (:afterCategory is null or i.category > :afterCategory"
+            + " or (i.category = :afterCategory and i.id > :afterId))"
+            + " order by i.category, i.id")
+    List<BalanceSheetItemView> findPage(@Param("reportId") Long reportId,
+            @Param("category") BalanceSheetItem.Category category,
+            @Param("afterCategory") BalanceSheetItem.Category afterCategory,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    @Query("select count(i) from BalanceSheetItem i where i.report.id = :reportId"
+            + " and (:category is null or i.category = :category)")
+    long countPage(@Param("reportId") Long reportId, @Param("category") BalanceSheetItem.Category category);
+
+    @Query("select new com.cashflow.app.repository.DebtLine(i.name, i.isInterest, i.interestAmount)"
+            + " from BalanceSheetItem i where i.report.id = :reportId and i.category in :categories"
+            + " order by i.id")
+    List<DebtLine> findDebtLines(@Param("reportId") Long reportId,
+            @Param("categories") Collection<BalanceSheetItem.Category> categories);
+
+    // Export: a fetch size of Integer.MIN_VALUE makes MySQL Connector/J stream rows one by one
+    // instead of buffering the whole result set. Close the stream before running another query.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("select new com.cashflow.app.payload.response.BalanceSheetItemView(i.id, i.category, i.name,"
+            + " i.amount, i.note, i.isInterest, i.interestAmount)"
+            + " from BalanceSheetItem i where i.report.id = :reportId")
+    Stream<BalanceSheetItemView> streamByReportId(@Param("reportId") Long reportId);
 }
@@ -0,0 +1,18 @@
+package com.cashflow.app.repository;
+
+import com.cashflow.app.entity.CashFlowSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+
+public interface CashFlowSnapshotRepository extends JpaRepository<CashFlowSnapshot, Long> {
+    // Range scan on the (report_id, period_month) unique index
+    List<CashFlowSnapshot> findByReportIdAndPeriodMonthBetweenOrderByPeriodMonthAsc(Long reportId, Integer from,
+            Integer to);
+
+    @Modifying
+    @Query("delete from CashFlowSnapshot s where s.reportId = :reportId")
+    int deleteByReportId(@Param("reportId") Long reportId);
+}
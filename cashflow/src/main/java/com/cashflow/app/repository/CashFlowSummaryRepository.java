@@ -0,0 +1,29 @@
+package com.cashflow.app.repository;
+
+import com.cashflow.app.entity.CashFlowSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Optional;
+
+public interface CashFlowSummaryRepository extends JpaRepository<CashFlowSummary, Long> {
+    // Creates an empty row for the report unless one exists, so that findForUpdate always has a
+    // row to lock: at READ_COMMITTED a locking read of a missing row takes no gap lock, and two
+    // first refreshes would otherwise both insert the same report_id
+    @Modifying
+    @Query(value = "insert ignore into cash_flow_summaries (report_id, labor_income, asset_income, living_expense,"
+            + " interest_expense, asset_expense, debt_names, version) values (:reportId, 0, 0, 0, 0, 0, '', 0)",
+            nativeQuery = true)
+    int insertIfMissing(@Param("reportId") Long reportId);
+
+    // Serializes concurrent refreshes of the same report
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from CashFlowSummary s where s.reportId = :reportId")
+    Optional<CashFlowSummary> findForUpdate(@Param("reportId") Long reportId);
+
+    @Query("select s.version from CashFlowSummary s where s.reportId = :reportId")
+    Optional<Long> findVersionByReportId(@Param("reportId") Long reportId);
+}
@@ -0,0 +1,5 @@
+package com.cashflow.app.repository;
+
+/** The columns of a balance-sheet debt that take part in the cash flow. */
+public record DebtLine(String name, Boolean isInterest, Double interestAmount) {
+}
@@ -1,9 +1,78 @@
 package com.cashflow.app.repository;
 
 import com.cashflow.app.entity.IncomeExpenseItem;
+import com.cashflow.app.payload.response.IncomeExpenseItemView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface IncomeExpenseItemRepository extends JpaRepository<IncomeExpenseItem, Long> {
-    List<IncomeExpenseItem> findByReportId(Long reportId);
+    // Read paths, see BalanceSheetItemRepository#findViewsByReportId
+    @Query("select new com.cashflow.app.payload.response.IncomeExpenseItemView(i.id, i.type, i.category,"
+            + " i.name, i.amount, i.isInterest, i.interestAmount, i.note)"
+            + " from IncomeExpenseItem i where i.report.id = :reportId")
+    List<IncomeExpenseItemView> findViewsByReportId(@Param("reportId") Long reportId);
+
+    // Name-based BS <-> IE sync, see BalanceSheetItemRepository#findByReportIdAndNameIn
+    @Query("select i from IncomeExpenseItem i where i.report.id = :reportId and i.name in :names order by i.id")
+    List<IncomeExpenseItem> findByReportIdAndNameIn(@Param("reportId") Long reportId,
+            @Param("names") Collection<String> names);
+
+    // Keyset page on (category, id), see BalanceSheetItemRepository#findPage
+    @Query("select new com.cashflow.app.payload.response.IncomeExpenseItemView(i.id, i.type, i.category,"
+            + " i.name, i.amount, i.isInterest, i.interestAmount, i.note)"
+            + " from IncomeExpenseItem i where i.report.id = :reportId"
+            + " and (:type is null or i.type = :type)"
+            + " and (:category is null or i.category = :category)"
+            + " and (:afterCategory is null or i.category > :afterCategory"
+            + " or (i.category = :afterCategory and i.id > :afterId))"
+            + " order by i.category, i.id")
+    List<IncomeExpenseItemView> findPage(@Param("reportId") Long reportId,
+            @Param("type") IncomeExpenseItem.Type type,
+            @Param("category") IncomeExpenseItem.Category category,
+            @Param("afterCategory") IncomeExpenseItem.Category afterCategory,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    @Query("select count(i) from IncomeExpenseItem i where i.report.id = :reportId"
+            + " and (:type is null or i.type = :type)"
+            + " and (:category is null or i.category = :category)")
+    long countPage(@Param("reportId") Long reportId, @Param("type") IncomeExpenseItem.Type type,
+            @Param("category") IncomeExpenseItem.Category category);
+
+    // Cash-flow totals without hydrating items. An empty debtNames collection matches nothing.
+    @Query("select new com.cashflow.app.repository.IncomeExpenseTotal(i.type, i.category, i.isInterest,"
+            + " sum(i.amount),"
+            + " sum(case when i.name in :debtNames then 0.0 else i.amount end),"
+            + " sum(case when i.name in :debtNames and i.interestAmount > 0 then i.interestAmount else 0.0 end),"
+            + " count(i))"
+            + " from IncomeExpenseItem i where i.report.id = :reportId"
+            + " group by i.type, i.category, i.isInterest")
+    List<IncomeExpenseTotal> sumByGroup(@Param("reportId") Long reportId,
+            @Param("debtNames") Collection<String> debtNames);
+
+    // Items that CashFlowCalculator merges by name (last write wins) and whose sums would
+    // therefore differ: repeated names among asset income and interest/asset expense lines,
+    // plus lines named like a debt's interest line.
+    @Query("select count(i) - count(distinct i.name)"
+            + " + coalesce(sum(case when i.name in :reservedNames then 1 else 0 end), 0)"
+            + " from IncomeExpenseItem i where i.report.id = :reportId"
+            + " and (i.type = INCOME and i.category = ASSET_INCOME"
+            + " or i.type = EXPENSE and (i.isInterest = true or i.category in (ASSET_EXPENSE, LOAN_REPAYMENT)))")
+    long countMergedNames(@Param("reportId") Long reportId,
+            @Param("reservedNames") Collection<String> reservedNames);
+
+    // Export stream, see BalanceSheetItemRepository#streamByReportId
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("select new com.cashflow.app.payload.response.IncomeExpenseItemView(i.id, i.type, i.category,"
+            + " i.name, i.amount, i.isInterest, i.interestAmount, i.note)"
+            + " from IncomeExpenseItem i where i.report.id = :reportId")
+    Stream<IncomeExpenseItemView> streamByReportId(@Param("reportId") Long reportId);
 }
@@ -0,0 +1,12 @@
+package com.cashflow.app.repository;
+
+import com.cashflow.app.entity.IncomeExpenseItem;
+
+/**
+ * Sums of the income/expense items of one report sharing a (type, category,
+ * is_interest) group. {@code nonDebtAmount} and {@code debtInterestAmount} split the
+ * group by whether the item name matches a balance-sheet debt.
+ */
+public record IncomeExpenseTotal(IncomeExpenseItem.Type type, IncomeExpenseItem.Category category,
+        Boolean isInterest, Double amount, Double nonDebtAmount, Double debtInterestAmount, Long items) {
+}
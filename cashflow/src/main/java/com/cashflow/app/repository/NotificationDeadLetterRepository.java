@@ -0,0 +1,7 @@
+package com.cashflow.app.repository;
+
+import com.cashflow.app.entity.NotificationDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface NotificationDeadLetterRepository extends JpaRepository<NotificationDeadLetter, Long> {
+}
@@ -0,0 +1,31 @@
+package com.cashflow.app.repository;
+
+import com.cashflow.app.entity.RateLimitBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface RateLimitBucketRepository extends JpaRepository<RateLimitBucket, String> {
+    // Takes one token if the bucket has one: moves fullAt one interval past max(fullAt, now)
+    // unless that would put it more than burst ahead of now
+    @Modifying
+    @Query("update RateLimitBucket b set "
+            + "b.fullAt = (case when b.fullAt > :now then b.fullAt else :now end) + :interval "
+            + "where b.key = :key "
+            + "and (case when b.fullAt > :now then b.fullAt else :now end) + :interval - :now <= :burst")
+    int take(@Param("key") String key, @Param("now") long now, @Param("interval") long interval,
+            @Param("burst") long burst);
+
+    @Modifying
+    @Query(value = "insert ignore into rate_limit_buckets (bucket_key, full_at) values (:key, :fullAt)",
+            nativeQuery = true)
+    int create(@Param("key") String key, @Param("fullAt") long fullAt);
+
+    @Query("select b.fullAt from RateLimitBucket b where b.key = :key")
+    Long findFullAt(@Param("key") String key);
+
+    @Modifying
+    @Query(value = "delete from rate_limit_buckets where full_at <= :now limit :batch", nativeQuery = true)
+    int deleteExpired(@Param("now") long now, @Param("batch") int batch);
+}
@@ -1,11 +1,30 @@
 package com.cashflow.app.repository;
 
 import com.cashflow.app.entity.Report;
+import com.cashflow.app.payload.response.ReportView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface ReportRepository extends JpaRepository<Report, Long> {
-    List<Report> findByUserId(Long userId);
+    @Query("select new com.cashflow.app.payload.response.ReportView(r.id, r.type, r.name, r.createdAt)"
+            + " from Report r where r.user.id = :userId order by r.id")
+    List<ReportView> findViewsByUserId(@Param("userId") Long userId);
 
     boolean existsByUserIdAndType(Long userId, Report.ReportType type);
+
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    @Query("select r.id from Report r where r.user.id = :userId")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
+
+    // Keyset walk over all reports for batch jobs
+    @Query("select r.id from Report r where not exists"
+            + " (select 1 from CashFlowSummary s where s.reportId = r.id) order by r.id")
+    List<Long> findIdsWithoutSummary();
+
+    @Query("select r.id from Report r where r.id > :afterId order by r.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
 }
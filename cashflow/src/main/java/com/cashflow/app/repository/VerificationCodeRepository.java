@@ -0,0 +1,37 @@
+package com.cashflow.app.repository;
+
+import com.cashflow.app.entity.VerificationCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface VerificationCodeRepository extends JpaRepository<VerificationCode, String> {
+    @Modifying
+    @Query(value = "insert into verification_codes (identifier, code, attempts, expires_at) "
+            + "values (:identifier, :code, 0, :expiresAt) "
+            + "on duplicate key update code = :code, attempts = 0, expires_at = :expiresAt", nativeQuery = true)
+    int upsert(@Param("identifier") String identifier, @Param("code") String code,
+            @Param("expiresAt") long expiresAt);
+
+    // At most one caller gets 1 back, which makes consumption atomic across instances
+    @Modifying
+    @Query("delete from VerificationCode v where v.identifier = :identifier and v.code = :code and v.expiresAt > :now")
+    int consume(@Param("identifier") String identifier, @Param("code") String code, @Param("now") long now);
+
+    @Modifying
+    @Query("update VerificationCode v set v.attempts = v.attempts + 1 where v.identifier = :identifier and v.expiresAt > :now")
+    int recordFailedAttempt(@Param("identifier") String identifier, @Param("now") long now);
+
+    @Modifying
+    @Query("delete from VerificationCode v where v.identifier = :identifier and v.attempts >= :maxAttempts")
+    int deleteExhausted(@Param("identifier") String identifier, @Param("maxAttempts") int maxAttempts);
+
+    @Query("select count(v) from VerificationCode v where v.expiresAt > :now")
+    long countLive(@Param("now") long now);
+
+    // Bounded batches keep each sweep statement short; relies on idx_vc_expires_at
+    @Modifying
+    @Query(value = "delete from verification_codes where expires_at <= :now limit :batch", nativeQuery = true)
+    int deleteExpired(@Param("now") long now, @Param("batch") int batch);
+}
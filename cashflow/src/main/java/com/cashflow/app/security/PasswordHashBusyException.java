@@ -0,0 +1,11 @@
+package com.cashflow.app.security;
+
+/**
+ * Thrown when the password-hash pool is saturated; answered with 503 and
+ * {@code Retry-After} instead of queueing more BCrypt work.
+ */
+public class PasswordHashBusyException extends RuntimeException {
+    public PasswordHashBusyException() {
+        super("Password hashing is at capacity");
+    }
+}
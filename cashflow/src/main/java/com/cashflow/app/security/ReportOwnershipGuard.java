@@ -0,0 +1,56 @@
+package com.cashflow.app.security;
+
+import com.cashflow.app.repository.ReportRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Answers "does this user own this report" from a short-lived per-user cache of
+ * owned report ids; a miss costs one id-only query. Ids not in the cached set are
+ * re-checked with {@code existsByIdAndUserId}, so a report created on another node
+ * is never wrongly rejected.
+ */
+@Component
+public class ReportOwnershipGuard {
+
+    private final ReportRepository reportRepository;
+
+    private final Cache<Long, Set<Long>> ownedReportIds;
+
+    public ReportOwnershipGuard(ReportRepository reportRepository,
+            @Value("${app.security.report-ownership-cache.max-size:10000}") long maxSize,
+            @Value("${app.security.report-ownership-cache.ttl:30s}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.reportRepository = reportRepository;
+        this.ownedReportIds = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, ownedReportIds, "reportOwnership");
+    }
+
+    public boolean isOwner(Long userId, Long reportId) {
+        Set<Long> owned = ownedReportIds.get(userId, id -> Set.copyOf(reportRepository.findIdsByUserId(id)));
+        if (owned.contains(reportId)) {
+            return true;
+        }
+        if (reportRepository.existsByIdAndUserId(reportId, userId)) {
+            ownedReportIds.invalidate(userId);
+            return true;
+        }
+        return false;
+    }
+
+    /** Call after the user's set of reports changes. */
+    public void evict(Long userId) {
+        ownedReportIds.invalidate(userId);
+    }
+}
@@ -0,0 +1,48 @@
+package com.cashflow.app.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Rejects any request whose {@code {reportId}} path variable names a report the
+ * current user does not own, before the handler runs.
+ */
+@Component
+public class ReportOwnershipInterceptor implements HandlerInterceptor {
+
+    private final ReportOwnershipGuard guard;
+
+    public ReportOwnershipInterceptor(ReportOwnershipGuard guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request
+                .getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String reportId = variables != null ? variables.get("reportId") : null;
+        if (reportId == null) {
+            return true;
+        }
+
+        Long id;
+        try {
+            id = Long.valueOf(reportId);
+        } catch (NumberFormatException e) {
+            // Left to the handler's own argument binding (400)
+            return true;
+        }
+        if (!guard.isOwner(CurrentUserIdArgumentResolver.currentUserId(), id)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Unauthorized: You do not own this report");
+        }
+        return true;
+    }
+}
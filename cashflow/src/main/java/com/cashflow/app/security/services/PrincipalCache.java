@@ -0,0 +1,57 @@
+package com.cashflow.app.security.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded, time-expiring cache of authenticated principals keyed by JWT subject, so
+ * {@code AuthTokenFilter} does not query the users table on every request.
+ *
+ * <p>
+ * Entries carry no password hash. Hit/miss counters are published as the
+ * {@code cache.gets} meter with tag {@code cache=principals}.
+ */
+@Component
+public class PrincipalCache {
+
+    private final Cache<String, UserDetailsImpl> cache;
+
+    public PrincipalCache(@Value("${app.security.principal-cache.max-size:10000}") long maxSize,
+            @Value("${app.security.principal-cache.ttl:5m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    public UserDetailsImpl get(String subject, Function<String, UserDetailsImpl> loader) {
+        return cache.get(subject, key -> {
+            UserDetailsImpl loaded = loader.apply(key);
+            return new UserDetailsImpl(loaded.getId(), loaded.getUsername(), loaded.getEmail(), null);
+        });
+    }
+
+    public void invalidate(String subject) {
+        if (subject != null) {
+            cache.invalidate(subject);
+        }
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+}
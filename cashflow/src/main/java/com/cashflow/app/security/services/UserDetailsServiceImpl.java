@@ -4,13 +4,14 @@ import com.cashflow.app.entity.User;
 import com.cashflow.app.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     @Autowired
     UserRepository userRepository;
 
@@ -23,4 +24,17 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         return UserDetailsImpl.build(user);
     }
+
+    /**
+     * Stores a password re-encoded at the current BCrypt strength, called by the
+     * authentication provider after a successful login with an older hash.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User entity = userRepository.findById(((UserDetailsImpl) user).getId())
+            .orElseThrow(() -> new UsernameNotFoundException("User Not Found with identifier: " + user.getUsername()));
+        entity.setPassword(newPassword);
+        return UserDetailsImpl.build(userRepository.save(entity));
+    }
 }
@@ -0,0 +1,91 @@
+package com.cashflow.app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the AI chat streams in flight, per user and for the whole instance.
+ */
+@Component
+public class AiChatLimiter {
+
+    private final int maxPerUser;
+    private final int maxGlobal;
+    private final Semaphore global;
+    // Entries exist only while the user has a chat open
+    private final ConcurrentHashMap<Long, Integer> perUser = new ConcurrentHashMap<>();
+    private final Counter rejected;
+
+    public AiChatLimiter(@Value("${ai.chat.max-per-user:2}") int maxPerUser,
+            @Value("${ai.chat.max-global:100}") int maxGlobal,
+            MeterRegistry registry) {
+        this.maxPerUser = maxPerUser;
+        this.maxGlobal = maxGlobal;
+        this.global = new Semaphore(maxGlobal);
+        Gauge.builder("ai.chat.active", this, AiChatLimiter::active)
+                .description("AI chat streams in flight")
+                .register(registry);
+        this.rejected = Counter.builder("ai.chat.rejected")
+                .description("AI chats refused because a concurrency limit was reached")
+                .register(registry);
+    }
+
+    /**
+     * Returns a permit to release when the chat ends, or {@code null} if the user or
+     * the instance is at its limit.
+     */
+    public Permit tryAcquire(Long userId) {
+        boolean[] acquired = { false };
+        perUser.compute(userId, (id, count) -> {
+            int current = count != null ? count : 0;
+            if (current >= maxPerUser) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        if (!acquired[0]) {
+            rejected.increment();
+            return null;
+        }
+        if (!global.tryAcquire()) {
+            releaseUser(userId);
+            rejected.increment();
+            return null;
+        }
+        return new Permit(userId);
+    }
+
+    public int active() {
+        return maxGlobal - global.availablePermits();
+    }
+
+    private void releaseUser(Long userId) {
+        perUser.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    public final class Permit {
+
+        private final Long userId;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Long userId) {
+            this.userId = userId;
+        }
+
+        /** Idempotent: completion, timeout and cancellation may all report the end of a chat. */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                global.release();
+                releaseUser(userId);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.cashflow.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads the SSE data of the AI service, one JSON object per event such as
+ * {@code {"type": "token", "content": "..."}}.
+ */
+final class AiEvents {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private AiEvents() {
+    }
+
+    /** The parsed event, or {@code null} when it is not JSON. */
+    static JsonNode parse(String event) {
+        try {
+            return MAPPER.readTree(event);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /** The {@code type} field, or an empty string when the event has none. */
+    static String type(JsonNode event) {
+        return event == null ? "" : event.path("type").asText();
+    }
+
+    static boolean isError(String event) {
+        return "error".equals(type(parse(event)));
+    }
+}
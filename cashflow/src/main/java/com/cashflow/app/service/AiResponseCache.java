@@ -0,0 +1,153 @@
+package com.cashflow.app.service;
+
+import com.cashflow.app.payload.response.FinancialSnapshot;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Caches complete AI chat answers (the SSE data of one stream) by user, normalized
+ * message, forwarded history window and a fingerprint of the user's financial data, and
+ * coalesces identical chats that are still streaming into one upstream call.
+ *
+ * <p>
+ * Bounded by the total length of the cached events and expired after a TTL; answers
+ * that ended with an error event are not cached.
+ */
+@Component
+public class AiResponseCache {
+
+    public record Key(long userId, String message, String history, String fingerprint) {
+    }
+
+    private final boolean enabled;
+    private final Cache<Key, List<String>> answers;
+    private final ConcurrentHashMap<Key, Flux<String>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public AiResponseCache(@Value("${ai.response-cache.enabled:true}") boolean enabled,
+            @Value("${ai.response-cache.max-chars:20000000}") long maxChars,
+            @Value("${ai.response-cache.ttl:10m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.answers = Caffeine.newBuilder()
+                .maximumWeight(maxChars)
+                .weigher((Key key, List<String> events) -> weight(key, events))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, answers, "aiResponses");
+        this.coalesced = Counter.builder("ai.chat.coalesced")
+                .description("AI chats served by joining an identical chat in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cache key of a chat, or {@code null} when it must not be cached
+     * (cache disabled, or no snapshot to fingerprint the user's data with).
+     *
+     * @param history role and content of each forwarded history message, in order; the
+     *            conversation window is already trimmed, so all of it is part of the key
+     */
+    public Key key(long userId, String message, List<String> history, FinancialSnapshot snapshot) {
+        if (!enabled || snapshot == null) {
+            return null;
+        }
+        return new Key(userId, normalize(message), digest(history), fingerprint(snapshot));
+    }
+
+    /**
+     * The SSE data of the answer: replayed from the cache, joined to an identical chat in
+     * flight, or streamed from {@code upstream} and cached once it completes.
+     * A {@code null} key bypasses the cache.
+     */
+    public Flux<String> stream(Key key, Supplier<Flux<String>> upstream) {
+        if (key == null) {
+            return upstream.get();
+        }
+        List<String> cached = answers.getIfPresent(key);
+        if (cached != null) {
+            return Flux.fromIterable(cached);
+        }
+
+        boolean[] created = { false };
+        Flux<String> shared = inFlight.computeIfAbsent(key, k -> {
+            created[0] = true;
+            List<String> events = new ArrayList<>();
+            return upstream.get()
+                    .doOnNext(events::add)
+                    .doOnComplete(() -> {
+                        if (events.stream().noneMatch(AiEvents::isError)) {
+                            answers.put(k, List.copyOf(events));
+                        }
+                    })
+                    .doFinally(signal -> inFlight.remove(k))
+                    // Late joiners get the events so far; the upstream is cancelled once every viewer is gone
+                    .replay()
+                    .refCount();
+        });
+        if (!created[0]) {
+            coalesced.increment();
+        }
+        return shared;
+    }
+
+    static String normalize(String message) {
+        String normalized = message.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        int end = normalized.length();
+        while (end > 0 && "?？!！.。~～".indexOf(normalized.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return normalized.substring(0, end);
+    }
+
+    private static String fingerprint(FinancialSnapshot snapshot) {
+        List<String> parts = new ArrayList<>();
+        FinancialSnapshot.UserInfo user = snapshot.user();
+        parts.add(user.username());
+        parts.add(String.valueOf(user.email()));
+        parts.add(String.valueOf(user.gender()));
+        parts.add(String.valueOf(user.age()));
+        for (FinancialSnapshot.ReportSnapshot report : snapshot.reports()) {
+            parts.add(report.reportId() + ":" + report.version());
+        }
+        return digest(parts);
+    }
+
+    private static String digest(List<String> parts) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                sha256.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                sha256.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int weight(Key key, List<String> events) {
+        long chars = key.message().length();
+        for (String event : events) {
+            chars += event.length();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, chars);
+    }
+}
@@ -0,0 +1,150 @@
+package com.cashflow.app.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Status of the Python AI service: probed in the background on a fixed delay, without
+ * blocking any thread, and kept for {@code /api/ai/health} to answer from.
+ *
+ * <p>
+ * Also a circuit breaker in front of chat requests. It opens when a probe fails or
+ * after {@code failure-threshold} chats in a row fail to reach the service, and closes
+ * on the next successful probe or chat. While open, one trial chat is let through per
+ * {@code open-duration}, so the breaker can close between probes.
+ */
+@Component
+public class AiServiceHealth {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiServiceHealth.class);
+
+    private static final ParameterizedTypeReference<Map<String, Object>> MAP_TYPE = new ParameterizedTypeReference<>() {
+    };
+
+    /** Result of the last probe; {@code checkedAt} is null until the first one completes. */
+    public record Status(boolean up, Map<String, Object> details, String error, Instant checkedAt) {
+    }
+
+    private final WebClient webClient;
+    private final Duration probeTimeout;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private volatile Status status = new Status(false, Map.of(), null, null);
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    private volatile boolean open;
+    private final AtomicLong nextTrialAt = new AtomicLong();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    public AiServiceHealth(@Qualifier("aiWebClient") WebClient webClient,
+            @Value("${ai.health.timeout:3s}") Duration probeTimeout,
+            @Value("${ai.circuit.failure-threshold:3}") int failureThreshold,
+            @Value("${ai.circuit.open-duration:15s}") Duration openDuration,
+            MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.probeTimeout = probeTimeout;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openDuration.toMillis();
+        Gauge.builder("ai.service.up", this, health -> health.status.up() ? 1 : 0)
+                .description("Whether the last AI service health probe succeeded")
+                .register(meterRegistry);
+        Gauge.builder("ai.circuit.open", this, health -> health.open ? 1 : 0)
+                .description("Whether chats to the AI service are being refused")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${ai.health.interval:10s}")
+    public void probe() {
+        // A probe still waiting for its timeout is not doubled up
+        if (!probing.compareAndSet(false, true)) {
+            return;
+        }
+        webClient.get()
+                .uri("/health")
+                .retrieve()
+                .bodyToMono(MAP_TYPE)
+                .timeout(probeTimeout)
+                .doFinally(signal -> probing.set(false))
+                .subscribe(
+                        details -> {
+                            if (!status.up()) {
+                                logger.info("AI service is up");
+                            }
+                            status = new Status(true, details, null, Instant.now());
+                            recordSuccess();
+                        },
+                        error -> {
+                            if (status.up() || status.checkedAt() == null) {
+                                logger.warn("AI service health check failed: {}", error.getMessage());
+                            }
+                            status = new Status(false, Map.of(), error.getMessage(), Instant.now());
+                            trip();
+                        });
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    public boolean isCircuitOpen() {
+        return open;
+    }
+
+    /** Whether a chat may call the AI service now. */
+    public boolean allowRequest() {
+        if (!open) {
+            return true;
+        }
+        long trialAt = nextTrialAt.get();
+        long now = System.currentTimeMillis();
+        return now >= trialAt && nextTrialAt.compareAndSet(trialAt, now + openMillis);
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (open) {
+            open = false;
+            logger.info("AI circuit closed");
+        }
+    }
+
+    /** Counts a chat that ended with {@code error}; only failures to reach the service count. */
+    public void recordFailure(Throwable error) {
+        if (isServiceFailure(error) && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            trip();
+        }
+    }
+
+    private void trip() {
+        if (!open) {
+            nextTrialAt.set(System.currentTimeMillis() + openMillis);
+            open = true;
+            logger.warn("AI circuit opened");
+        }
+    }
+
+    private static boolean isServiceFailure(Throwable error) {
+        return error instanceof WebClientRequestException
+                || error instanceof TimeoutException
+                || (error instanceof WebClientResponseException response && response.getStatusCode().is5xxServerError());
+    }
+}
@@ -0,0 +1,80 @@
+package com.cashflow.app.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for AI service answer streams: time to first event, total stream time, size
+ * and throughput. Applied to the upstream flux only, so cached replays do not count.
+ */
+@Component
+public class AiStreamMetrics {
+
+    private final Timer timeToFirstToken;
+    private final Timer duration;
+    private final DistributionSummary bytes;
+    private final DistributionSummary throughput;
+
+    public AiStreamMetrics(MeterRegistry registry) {
+        this.timeToFirstToken = Timer.builder("ai.chat.ttft")
+                .description("Time from sending a chat to the first streamed event")
+                .register(registry);
+        this.duration = Timer.builder("ai.chat.stream.duration")
+                .description("Time from sending a chat to the end of its answer stream")
+                .register(registry);
+        this.bytes = DistributionSummary.builder("ai.chat.stream.bytes")
+                .description("UTF-8 size of the streamed event data per answer")
+                .baseUnit("bytes")
+                .register(registry);
+        this.throughput = DistributionSummary.builder("ai.chat.stream.throughput")
+                .description("Streamed event data per second of answer stream")
+                .baseUnit("bytes/s")
+                .register(registry);
+    }
+
+    /** Measures each subscription to {@code stream} separately. */
+    public Flux<String> instrument(Flux<String> stream) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            long[] state = { 0, 0 }; // events, bytes
+            return stream
+                    .doOnNext(data -> {
+                        if (state[0]++ == 0) {
+                            timeToFirstToken.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                        state[1] += utf8Length(data);
+                    })
+                    .doOnComplete(() -> {
+                        long elapsed = System.nanoTime() - start;
+                        duration.record(elapsed, TimeUnit.NANOSECONDS);
+                        bytes.record(state[1]);
+                        if (elapsed > 0) {
+                            throughput.record(state[1] * 1e9 / elapsed);
+                        }
+                    });
+        });
+    }
+
+    private static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
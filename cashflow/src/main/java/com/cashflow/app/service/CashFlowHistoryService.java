@@ -0,0 +1,142 @@
+package com.cashflow.app.service;
+
+import com.cashflow.app.entity.CashFlowSnapshot;
+import com.cashflow.app.entity.CashFlowSummary;
+import com.cashflow.app.payload.response.CashFlowHistoryPoint;
+import com.cashflow.app.repository.CashFlowSnapshotRepository;
+import com.cashflow.app.repository.CashFlowSummaryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monthly cash-flow snapshots: captured from the persisted {@link CashFlowSummary} by
+ * {@link CashFlowSnapshotJob}, and read back as monthly, quarterly or yearly series.
+ */
+@Service
+public class CashFlowHistoryService {
+
+    private static final String UPSERT_SNAPSHOT = "insert into cash_flow_snapshots (report_id, period_month,"
+            + " labor_income, asset_income, living_expense, interest_expense, asset_expense, captured_at)"
+            + " values (?, ?, ?, ?, ?, ?, ?, ?) on duplicate key update labor_income = values(labor_income),"
+            + " asset_income = values(asset_income), living_expense = values(living_expense),"
+            + " interest_expense = values(interest_expense), asset_expense = values(asset_expense),"
+            + " captured_at = values(captured_at)";
+
+    public enum Granularity {
+        MONTH,
+        QUARTER,
+        YEAR
+    }
+
+    @Autowired
+    CashFlowSnapshotRepository cashFlowSnapshotRepository;
+
+    @Autowired
+    CashFlowSummaryRepository cashFlowSummaryRepository;
+
+    @Autowired
+    CashFlowService cashFlowService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * Writes (or overwrites) the snapshot of {@code month} for each report of one chunk,
+     * as one JDBC batch of upserts. Runs of the job on several instances therefore
+     * overwrite each other's rows instead of failing on the unique key.
+     */
+    @Transactional
+    public void captureChunk(List<Long> reportIds, YearMonth month) {
+        int period = toPeriod(month);
+        Map<Long, CashFlowSummary> summaries = new HashMap<>();
+        for (CashFlowSummary summary : cashFlowSummaryRepository.findAllById(reportIds)) {
+            summaries.put(summary.getReportId(), summary);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(reportIds.size());
+        for (Long reportId : reportIds) {
+            CashFlowSummary summary = summaries.get(reportId);
+            if (summary == null) {
+                summary = cashFlowService.getSummary(reportId);
+            }
+            rows.add(new Object[] { reportId, period, summary.getLaborIncome(), summary.getAssetIncome(),
+                    summary.getLivingExpense(), summary.getInterestExpense(), summary.getAssetExpense(), now });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SNAPSHOT, rows);
+    }
+
+    @Transactional
+    public void delete(Long reportId) {
+        cashFlowSnapshotRepository.deleteByReportId(reportId);
+    }
+
+    /**
+     * Reads the snapshots of {@code from..to} (inclusive) with one index range scan and
+     * rolls them up to the requested granularity.
+     */
+    @Transactional(readOnly = true)
+    public List<CashFlowHistoryPoint> history(Long reportId, YearMonth from, YearMonth to, Granularity granularity) {
+        List<CashFlowSnapshot> snapshots = cashFlowSnapshotRepository
+                .findByReportIdAndPeriodMonthBetweenOrderByPeriodMonthAsc(reportId, toPeriod(from), toPeriod(to));
+
+        List<CashFlowHistoryPoint> points = new ArrayList<>();
+        String period = null;
+        int months = 0;
+        double laborIncome = 0, assetIncome = 0, livingExpense = 0, interestExpense = 0, assetExpense = 0;
+        for (CashFlowSnapshot snapshot : snapshots) {
+            String label = label(snapshot.getPeriodMonth(), granularity);
+            if (!label.equals(period)) {
+                if (period != null) {
+                    points.add(point(period, months, laborIncome, assetIncome, livingExpense, interestExpense,
+                            assetExpense));
+                }
+                period = label;
+                months = 0;
+                laborIncome = assetIncome = livingExpense = interestExpense = assetExpense = 0;
+            }
+            months++;
+            laborIncome += snapshot.getLaborIncome();
+            assetIncome += snapshot.getAssetIncome();
+            livingExpense += snapshot.getLivingExpense();
+            interestExpense += snapshot.getInterestExpense();
+            assetExpense += snapshot.getAssetExpense();
+        }
+        if (period != null) {
+            points.add(point(period, months, laborIncome, assetIncome, livingExpense, interestExpense, assetExpense));
+        }
+        return points;
+    }
+
+    static int toPeriod(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    private static String label(int periodMonth, Granularity granularity) {
+        int year = periodMonth / 100;
+        int month = periodMonth % 100;
+        return switch (granularity) {
+            case MONTH -> String.format("%d-%02d", year, month);
+            case QUARTER -> year + "-Q" + ((month - 1) / 3 + 1);
+            case YEAR -> String.valueOf(year);
+        };
+    }
+
+    private static CashFlowHistoryPoint point(String period, int months, double laborIncome, double assetIncome,
+            double livingExpense, double interestExpense, double assetExpense) {
+        double totalIncome = laborIncome + assetIncome;
+        double totalExpense = livingExpense + interestExpense + assetExpense;
+        return new CashFlowHistoryPoint(period, months, laborIncome, assetIncome, livingExpense, interestExpense,
+                assetExpense, totalIncome, totalExpense, totalIncome - totalExpense);
+    }
+}
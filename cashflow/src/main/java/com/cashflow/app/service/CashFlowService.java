@@ -0,0 +1,350 @@
+package com.cashflow.app.service;
+
+import com.cashflow.app.calculator.CashFlowCalculator;
+import com.cashflow.app.calculator.CashFlowCalculator.Bucket;
+import com.cashflow.app.calculator.CashFlowResult;
+import com.cashflow.app.calculator.NamedAmounts;
+import com.cashflow.app.entity.BalanceSheetItem;
+import com.cashflow.app.entity.CashFlowSummary;
+import com.cashflow.app.entity.IncomeExpenseItem;
+import com.cashflow.app.payload.response.BalanceSheetItemView;
+import com.cashflow.app.payload.response.CashFlowLine;
+import com.cashflow.app.payload.response.CashFlowTable;
+import com.cashflow.app.payload.response.IncomeExpenseItemView;
+import com.cashflow.app.repository.BalanceSheetItemRepository;
+import com.cashflow.app.repository.CashFlowSummaryRepository;
+import com.cashflow.app.repository.DebtLine;
+import com.cashflow.app.repository.IncomeExpenseItemRepository;
+import com.cashflow.app.repository.IncomeExpenseTotal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Applies the {@link CashFlowCalculator} to the items of a report, and keeps the
+ * persisted {@link CashFlowSummary} up to date on every item mutation. Reads take their
+ * totals from that summary row; items are only loaded when their lines are needed.
+ */
+@Service
+public class CashFlowService {
+
+    private static final double TOLERANCE = 1e-6;
+
+    private static final List<BalanceSheetItem.Category> DEBT_CATEGORIES = List.of(
+            BalanceSheetItem.Category.CONSUMER_DEBT,
+            BalanceSheetItem.Category.INVESTMENT_DEBT,
+            BalanceSheetItem.Category.PERSONAL_DEBT);
+
+    private static final CashFlowCalculator.Kind[] KINDS = new CashFlowCalculator.Kind[IncomeExpenseItem.Category
+            .values().length];
+
+    static {
+        for (IncomeExpenseItem.Category category : IncomeExpenseItem.Category.values()) {
+            KINDS[category.ordinal()] = CashFlowCalculator.Kind.valueOf(category.name());
+        }
+    }
+
+    @Autowired
+    IncomeExpenseItemRepository incomeExpenseItemRepository;
+
+    @Autowired
+    BalanceSheetItemRepository balanceSheetItemRepository;
+
+    @Autowired
+    CashFlowSummaryRepository cashFlowSummaryRepository;
+
+    // ===== Full recompute =====
+
+    /**
+     * Cash-flow table of a report. The totals are read from the stored summary, a single
+     * row; with {@code withItems} the items and debts are loaded as well to list the lines.
+     */
+    @Transactional(readOnly = true)
+    public CashFlowTable calculate(Long reportId, boolean withItems) {
+        ToDoubleFunction<Bucket> totals = totals(getSummary(reportId));
+        if (!withItems) {
+            return table(totals, null, null);
+        }
+        List<IncomeExpenseItemView> items = incomeExpenseItemRepository.findViewsByReportId(reportId);
+        CashFlowResult cashFlow = compute(items, balanceSheetItemRepository.findDebtLines(reportId, DEBT_CATEGORIES));
+        return table(totals, cashFlow, items);
+    }
+
+    /**
+     * Cash-flow table of items the caller has already loaded.
+     */
+    public CashFlowTable calculate(List<IncomeExpenseItemView> items, List<BalanceSheetItemView> bsItems) {
+        List<DebtLine> debts = new ArrayList<>();
+        for (BalanceSheetItemView item : bsItems) {
+            if (DEBT_CATEGORIES.contains(item.category())) {
+                debts.add(new DebtLine(item.name(), item.isInterest(), item.interestAmount()));
+            }
+        }
+        CashFlowResult cashFlow = compute(items, debts);
+        return table(cashFlow::total, cashFlow, items);
+    }
+
+    private CashFlowResult compute(Long reportId) {
+        return compute(incomeExpenseItemRepository.findViewsByReportId(reportId),
+                balanceSheetItemRepository.findDebtLines(reportId, DEBT_CATEGORIES));
+    }
+
+    /**
+     * Runs the {@link CashFlowCalculator} over the items and debts of one report.
+     */
+    public CashFlowResult compute(List<IncomeExpenseItemView> items, List<DebtLine> debts) {
+        CashFlowCalculator calculator = new CashFlowCalculator(items.size(), debts.size());
+        for (DebtLine debt : debts) {
+            calculator.addBalanceSheetItem(true, debt.name(),
+                    Boolean.TRUE.equals(debt.isInterest()), valueOf(debt.interestAmount()));
+        }
+        for (IncomeExpenseItemView item : items) {
+            calculator.addIncomeExpenseItem(item.type() == IncomeExpenseItem.Type.EXPENSE,
+                    KINDS[item.category().ordinal()], item.name(), valueOf(item.amount()),
+                    Boolean.TRUE.equals(item.isInterest()), valueOf(item.interestAmount()));
+        }
+        return calculator.calculate();
+    }
+
+    private static List<IncomeExpenseItemView> listedItems(CashFlowResult cashFlow, Bucket bucket,
+            List<IncomeExpenseItemView> items) {
+        int count = cashFlow.itemCount(bucket);
+        List<IncomeExpenseItemView> listed = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            listed.add(items.get(cashFlow.itemIndex(bucket, i)));
+        }
+        return listed;
+    }
+
+    private static List<CashFlowLine> displayLines(CashFlowResult cashFlow, Bucket bucket) {
+        NamedAmounts lines = cashFlow.lines(bucket);
+        List<CashFlowLine> display = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            display.add(new CashFlowLine(lines.name(i), lines.amount(i)));
+        }
+        return display;
+    }
+
+    // Lists are only filled in when the calculator ran over the items
+    private static CashFlowTable table(ToDoubleFunction<Bucket> total, CashFlowResult cashFlow,
+            List<IncomeExpenseItemView> items) {
+        double laborIncome = total.applyAsDouble(Bucket.LABOR_INCOME);
+        double assetIncome = total.applyAsDouble(Bucket.ASSET_INCOME);
+        double livingExpense = total.applyAsDouble(Bucket.LIVING_EXPENSE);
+        double interestExpense = total.applyAsDouble(Bucket.INTEREST_EXPENSE);
+        double assetExpense = total.applyAsDouble(Bucket.ASSET_EXPENSE);
+        double totalIncome = laborIncome + assetIncome;
+        double totalExpense = livingExpense + interestExpense + assetExpense;
+        boolean lines = items != null;
+        return new CashFlowTable(totalIncome, totalExpense, totalIncome - totalExpense,
+                laborIncome, assetIncome, livingExpense, interestExpense, assetExpense,
+                lines ? listedItems(cashFlow, Bucket.LABOR_INCOME, items) : null,
+                lines ? displayLines(cashFlow, Bucket.ASSET_INCOME) : null,
+                lines ? listedItems(cashFlow, Bucket.LIVING_EXPENSE, items) : null,
+                lines ? displayLines(cashFlow, Bucket.INTEREST_EXPENSE) : null,
+                lines ? displayLines(cashFlow, Bucket.ASSET_EXPENSE) : null,
+                lines ? List.of() : null);
+    }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    // ===== Database-side totals =====
+
+    /** Bucket totals and debt names of a report, as {@link CashFlowResult} would report them. */
+    private record Totals(double[] totals, Set<String> debtNames) {
+
+        double total(Bucket bucket) {
+            return totals[bucket.ordinal()];
+        }
+    }
+
+    /**
+     * Computes the bucket totals from per-(type, category, is_interest) sums, reading
+     * O(groups + debts) rows instead of every item. Empty when the calculator would
+     * merge some lines by name, which a sum cannot reproduce; {@link #refresh} then
+     * falls back to {@link #compute}. Only run when the summary is written, never on reads.
+     */
+    private Optional<Totals> aggregate(Long reportId) {
+        Set<String> debtNames = new LinkedHashSet<>();
+        NamedAmounts debtInterest = new NamedAmounts();
+        for (DebtLine debt : balanceSheetItemRepository.findDebtLines(reportId, DEBT_CATEGORIES)) {
+            debtNames.add(debt.name());
+            if (Boolean.TRUE.equals(debt.isInterest()) && valueOf(debt.interestAmount()) > 0) {
+                debtInterest.put(CashFlowCalculator.debtInterestLine(debt.name()), debt.interestAmount());
+            }
+        }
+        Set<String> reservedNames = new HashSet<>();
+        for (int i = 0; i < debtInterest.size(); i++) {
+            reservedNames.add(debtInterest.name(i));
+        }
+        if (incomeExpenseItemRepository.countMergedNames(reportId, reservedNames) > 0) {
+            return Optional.empty();
+        }
+
+        double[] totals = new double[Bucket.values().length];
+        totals[Bucket.ASSET_EXPENSE.ordinal()] = debtInterest.sum();
+        for (IncomeExpenseTotal group : incomeExpenseItemRepository.sumByGroup(reportId, debtNames)) {
+            IncomeExpenseItem.Category category = group.category();
+            if (group.type() == IncomeExpenseItem.Type.INCOME) {
+                if (category == IncomeExpenseItem.Category.LABOR_INCOME) {
+                    totals[Bucket.LABOR_INCOME.ordinal()] += valueOf(group.amount());
+                } else if (category == IncomeExpenseItem.Category.ASSET_INCOME) {
+                    totals[Bucket.ASSET_INCOME.ordinal()] += valueOf(group.amount());
+                }
+                continue;
+            }
+            // Same rules as CashFlowCalculator#calculate, applied to a whole group
+            boolean isInterest = Boolean.TRUE.equals(group.isInterest());
+            if (category == IncomeExpenseItem.Category.LIVING_EXPENSE) {
+                totals[Bucket.LIVING_EXPENSE.ordinal()] += valueOf(group.amount());
+            }
+            if (isInterest) {
+                totals[Bucket.INTEREST_EXPENSE.ordinal()] += valueOf(group.nonDebtAmount());
+            }
+            if (category == IncomeExpenseItem.Category.ASSET_EXPENSE
+                    || category == IncomeExpenseItem.Category.LOAN_REPAYMENT) {
+                totals[Bucket.ASSET_EXPENSE.ordinal()] += valueOf(group.nonDebtAmount())
+                        + (isInterest ? valueOf(group.debtInterestAmount()) : 0);
+            }
+        }
+        return Optional.of(new Totals(totals, debtNames));
+    }
+
+    // ===== Persisted summary =====
+
+    /**
+     * Recomputes the summary of a report inside the caller's transaction. The summary
+     * row is created if missing and then locked, so concurrent mutations of the same
+     * report refresh it one after another and the last one always sees every committed
+     * item.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public CashFlowSummary refresh(Long reportId) {
+        cashFlowSummaryRepository.insertIfMissing(reportId);
+        CashFlowSummary summary = cashFlowSummaryRepository.findForUpdate(reportId).orElseThrow();
+        Optional<Totals> totals = aggregate(reportId);
+        if (totals.isPresent()) {
+            apply(summary, totals.get()::total, totals.get().debtNames());
+        } else {
+            apply(summary, compute(reportId));
+        }
+        summary.setVersion(summary.getVersion() + 1);
+        return cashFlowSummaryRepository.save(summary);
+    }
+
+    /**
+     * Current version of the report's items, read without loading them. A report
+     * without a summary yet is at version 0; its first mutation moves it to 1.
+     */
+    @Transactional(readOnly = true)
+    public long version(Long reportId) {
+        return cashFlowSummaryRepository.findVersionByReportId(reportId).orElse(0L);
+    }
+
+    /**
+     * Returns the stored summary. A report without one yet (see
+     * {@link CashFlowSummaryBackfill}) gets an unsaved summary computed from its items.
+     */
+    @Transactional(readOnly = true)
+    public CashFlowSummary getSummary(Long reportId) {
+        return cashFlowSummaryRepository.findById(reportId)
+                .orElseGet(() -> {
+                    CashFlowSummary computed = new CashFlowSummary();
+                    computed.setReportId(reportId);
+                    apply(computed, compute(reportId));
+                    return computed;
+                });
+    }
+
+    @Transactional
+    public CashFlowSummary rebuild(Long reportId) {
+        return refresh(reportId);
+    }
+
+    @Transactional
+    public void delete(Long reportId) {
+        if (cashFlowSummaryRepository.existsById(reportId)) {
+            cashFlowSummaryRepository.deleteById(reportId);
+        }
+    }
+
+    /**
+     * Compares the stored summary against a full recompute from the items,
+     * which also cross-checks the database-side totals used by {@link #refresh}.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> check(Long reportId) {
+        CashFlowSummary stored = cashFlowSummaryRepository.findById(reportId).orElse(null);
+        CashFlowSummary expected = new CashFlowSummary();
+        expected.setReportId(reportId);
+        apply(expected, compute(reportId));
+
+        Map<String, Object> mismatches = new LinkedHashMap<>();
+        if (stored == null) {
+            mismatches.put("summary", "missing");
+        } else {
+            compare(mismatches, "laborIncome", stored.getLaborIncome(), expected.getLaborIncome());
+            compare(mismatches, "assetIncome", stored.getAssetIncome(), expected.getAssetIncome());
+            compare(mismatches, "livingExpense", stored.getLivingExpense(), expected.getLivingExpense());
+            compare(mismatches, "interestExpense", stored.getInterestExpense(), expected.getInterestExpense());
+            compare(mismatches, "assetExpense", stored.getAssetExpense(), expected.getAssetExpense());
+            if (!stored.getDebtNames().equals(expected.getDebtNames())) {
+                mismatches.put("debtNames", Map.of("stored", stored.getDebtNames(),
+                        "expected", expected.getDebtNames()));
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("reportId", reportId);
+        result.put("consistent", mismatches.isEmpty());
+        result.put("mismatches", mismatches);
+        return result;
+    }
+
+    private static void apply(CashFlowSummary summary, CashFlowResult cashFlow) {
+        NamedAmounts debts = cashFlow.debtNames();
+        Set<String> debtNames = new LinkedHashSet<>();
+        for (int i = 0; i < debts.size(); i++) {
+            debtNames.add(debts.name(i));
+        }
+        apply(summary, cashFlow::total, debtNames);
+    }
+
+    private static ToDoubleFunction<Bucket> totals(CashFlowSummary summary) {
+        return bucket -> switch (bucket) {
+            case LABOR_INCOME -> summary.getLaborIncome();
+            case ASSET_INCOME -> summary.getAssetIncome();
+            case LIVING_EXPENSE -> summary.getLivingExpense();
+            case INTEREST_EXPENSE -> summary.getInterestExpense();
+            case ASSET_EXPENSE -> summary.getAssetExpense();
+        };
+    }
+
+    private static void apply(CashFlowSummary summary, ToDoubleFunction<Bucket> total, Set<String> debtNames) {
+        summary.setLaborIncome(total.applyAsDouble(Bucket.LABOR_INCOME));
+        summary.setAssetIncome(total.applyAsDouble(Bucket.ASSET_INCOME));
+        summary.setLivingExpense(total.applyAsDouble(Bucket.LIVING_EXPENSE));
+        summary.setInterestExpense(total.applyAsDouble(Bucket.INTEREST_EXPENSE));
+        summary.setAssetExpense(total.applyAsDouble(Bucket.ASSET_EXPENSE));
+        summary.setDebtNames(debtNames);
+    }
+
+    private static void compare(Map<String, Object> mismatches, String field, double stored, double expected) {
+        if (Math.abs(stored - expected) > TOLERANCE) {
+            mismatches.put(field, Map.of("stored", stored, "expected", expected));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.cashflow.app.service;
+
+import com.cashflow.app.repository.ReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Captures the cash-flow snapshot of every report for the month of the previous day,
+ * walking reports in id order one chunk (and one transaction) at a time. Running just
+ * after midnight, the run on the 1st records the final state of the month that just
+ * ended, including edits made on its last day.
+ */
+@Component
+public class CashFlowSnapshotJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(CashFlowSnapshotJob.class);
+
+    @Autowired
+    ReportRepository reportRepository;
+
+    @Autowired
+    CashFlowHistoryService cashFlowHistoryService;
+
+    @Value("${app.cashflow.snapshot.chunk-size:200}")
+    private int chunkSize;
+
+    @Scheduled(cron = "${app.cashflow.snapshot.cron:0 30 0 * * *}")
+    public void captureSnapshots() {
+        YearMonth month = YearMonth.from(LocalDate.now().minusDays(1));
+        long afterId = 0;
+        int captured = 0;
+        int failed = 0;
+        List<Long> reportIds;
+        while (!(reportIds = reportRepository.findIdsAfter(afterId, Limit.of(chunkSize))).isEmpty()) {
+            try {
+                cashFlowHistoryService.captureChunk(reportIds, month);
+                captured += reportIds.size();
+            } catch (Exception e) {
+                failed += reportIds.size();
+                logger.error("Cash-flow snapshot failed for reports {}..{}: {}", reportIds.get(0),
+                        reportIds.get(reportIds.size() - 1), e.getMessage());
+            }
+            afterId = reportIds.get(reportIds.size() - 1);
+        }
+        logger.info("Captured cash-flow snapshots for {}: {} reports, {} failed", month, captured, failed);
+    }
+}
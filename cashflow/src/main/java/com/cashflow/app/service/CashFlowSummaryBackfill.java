@@ -0,0 +1,47 @@
+package com.cashflow.app.service;
+
+import com.cashflow.app.repository.ReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Builds the missing summaries of reports created before summaries existed, once at
+ * startup, so reads never have to write. Each report is rebuilt in its own
+ * transaction; running on several instances at once is safe because a refresh
+ * creates the row with an insert-ignore before locking it.
+ */
+@Component
+public class CashFlowSummaryBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(CashFlowSummaryBackfill.class);
+
+    @Autowired
+    ReportRepository reportRepository;
+
+    @Autowired
+    CashFlowService cashFlowService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        List<Long> reportIds = reportRepository.findIdsWithoutSummary();
+        if (reportIds.isEmpty()) {
+            return;
+        }
+        int failed = 0;
+        for (Long reportId : reportIds) {
+            try {
+                cashFlowService.rebuild(reportId);
+            } catch (Exception e) {
+                failed++;
+                logger.error("Cash-flow summary backfill failed for report {}: {}", reportId, e.getMessage());
+            }
+        }
+        logger.info("Backfilled cash-flow summaries: {} reports, {} failed", reportIds.size(), failed);
+    }
+}
@@ -0,0 +1,152 @@
+package com.cashflow.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Server-side AI chat conversations, so the browser sends only its new message.
+ *
+ * <p>
+ * Each conversation keeps in memory just the window that is forwarded to the AI
+ * service: the latest messages within a token budget and a message cap. Older turns
+ * are dropped, so a long conversation costs constant heap and constant upload.
+ * Conversations expire after a period without use.
+ */
+@Component
+public class ConversationStore {
+
+    public record Message(String role, String content) {
+    }
+
+    private record Key(Long userId, String conversationId) {
+    }
+
+    private final int windowTokens;
+    private final int maxMessages;
+    private final Cache<Key, Conversation> conversations;
+
+    public ConversationStore(@Value("${ai.conversation.window-tokens:4000}") int windowTokens,
+            @Value("${ai.conversation.max-messages:20}") int maxMessages,
+            @Value("${ai.conversation.max-conversations:10000}") long maxConversations,
+            @Value("${ai.conversation.ttl:2h}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.windowTokens = windowTokens;
+        this.maxMessages = maxMessages;
+        this.conversations = Caffeine.newBuilder()
+                .maximumSize(maxConversations)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, conversations, "aiConversations");
+    }
+
+    /**
+     * Returns the user's conversation with that id, or {@code null} when the id is unknown
+     * (expired, or held by another instance or a previous run), so that the client can
+     * resend its own history. Without an id, starts a new conversation (with a new id)
+     * seeded with {@code history}.
+     */
+    public Conversation open(Long userId, String conversationId, List<Message> history) {
+        if (conversationId != null) {
+            return conversations.getIfPresent(new Key(userId, conversationId));
+        }
+        Conversation created = new Conversation(UUID.randomUUID().toString());
+        created.append(history);
+        conversations.put(new Key(userId, created.id()), created);
+        return created;
+    }
+
+    /**
+     * Appends a completed exchange: the user message and the answer text of the SSE
+     * events. Exchanges whose answer carried an error event are not kept, nor are those
+     * whose conversation changed after {@code revision} was read: the first of two chats
+     * sent with the same window wins, so a coalesced duplicate is not recorded twice.
+     */
+    public void recordExchange(Conversation conversation, long revision, String message, List<String> events) {
+        StringBuilder answer = new StringBuilder();
+        for (String event : events) {
+            JsonNode node = AiEvents.parse(event);
+            String type = AiEvents.type(node);
+            if ("error".equals(type)) {
+                return;
+            }
+            if ("answer".equals(type) || "token".equals(type)) {
+                answer.append(node.path("content").asText());
+            }
+        }
+        conversation.appendIfUnchanged(revision,
+                List.of(new Message("user", message), new Message("assistant", answer.toString())));
+    }
+
+    /** Rough token count: one per CJK (non-ASCII) character, one per four ASCII characters. */
+    static int estimateTokens(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int nonAscii = 0;
+        int ascii = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 0x80) {
+                ascii++;
+            } else {
+                nonAscii++;
+            }
+        }
+        return nonAscii + (ascii + 3) / 4;
+    }
+
+    public final class Conversation {
+
+        private final String id;
+        private final ArrayDeque<Message> window = new ArrayDeque<>();
+        private int tokens;
+        private long revision;
+
+        private Conversation(String id) {
+            this.id = id;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        /** Number of appends so far; pass it back to {@link #recordExchange}. */
+        public synchronized long revision() {
+            return revision;
+        }
+
+        /** The messages to forward, oldest first. */
+        public synchronized List<Message> window() {
+            return List.copyOf(window);
+        }
+
+        synchronized void appendIfUnchanged(long expected, List<Message> messages) {
+            if (revision == expected) {
+                append(messages);
+            }
+        }
+
+        synchronized void append(List<Message> messages) {
+            revision++;
+            for (Message message : messages) {
+                window.addLast(message);
+                tokens += estimateTokens(message.content());
+            }
+            // Keep at least the newest message, even when it alone is over budget
+            while (window.size() > 1 && (window.size() > maxMessages || tokens > windowTokens)) {
+                Message evicted = window.removeFirst();
+                tokens -= estimateTokens(evicted.content());
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.cashflow.app.service;
+
+import com.cashflow.app.payload.response.BalanceSheetItemView;
+import com.cashflow.app.payload.response.Dashboard;
+import com.cashflow.app.payload.response.IncomeExpenseItemView;
+import com.cashflow.app.payload.response.ReportView;
+import com.cashflow.app.repository.BalanceSheetItemRepository;
+import com.cashflow.app.repository.IncomeExpenseItemRepository;
+import com.cashflow.app.repository.ReportRepository;
+import com.cashflow.app.security.ReportOwnershipGuard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Assembles the {@link Dashboard} of a report page. Ownership is checked first, through
+ * the cached {@link ReportOwnershipGuard}, so no query ever touches another user's
+ * items. The two item lists are then loaded on the application task executor while the
+ * request thread reads the report list, and the cash-flow table is computed from the
+ * loaded items.
+ */
+@Service
+public class DashboardService {
+
+    @Autowired
+    ReportRepository reportRepository;
+
+    @Autowired
+    BalanceSheetItemRepository balanceSheetItemRepository;
+
+    @Autowired
+    IncomeExpenseItemRepository incomeExpenseItemRepository;
+
+    @Autowired
+    CashFlowService cashFlowService;
+
+    @Autowired
+    ReportOwnershipGuard reportOwnershipGuard;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    AsyncTaskExecutor taskExecutor;
+
+    /**
+     * Loads the dashboard of {@code reportId}, or of the user's first report when it is
+     * {@code null}. Answers 403 if the user does not own the report.
+     */
+    public Dashboard load(Long userId, Long reportId) {
+        if (reportId == null) {
+            List<ReportView> reports = reportRepository.findViewsByUserId(userId);
+            if (reports.isEmpty()) {
+                return new Dashboard(reports, null, null, null, null);
+            }
+            return load(userId, reports.get(0).id());
+        }
+
+        if (!reportOwnershipGuard.isOwner(userId, reportId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Unauthorized: You do not own this report");
+        }
+
+        CompletableFuture<List<BalanceSheetItemView>> balanceSheet = CompletableFuture.supplyAsync(
+                () -> balanceSheetItemRepository.findViewsByReportId(reportId), taskExecutor);
+        CompletableFuture<List<IncomeExpenseItemView>> incomeExpense = CompletableFuture.supplyAsync(
+                () -> incomeExpenseItemRepository.findViewsByReportId(reportId), taskExecutor);
+        List<ReportView> reports = reportRepository.findViewsByUserId(userId);
+        List<BalanceSheetItemView> bsItems = join(balanceSheet);
+        List<IncomeExpenseItemView> ieItems = join(incomeExpense);
+        return new Dashboard(reports, reportId, bsItems, ieItems, cashFlowService.calculate(ieItems, bsItems));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
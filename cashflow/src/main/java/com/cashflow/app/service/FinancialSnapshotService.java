@@ -0,0 +1,147 @@
+package com.cashflow.app.service;
+
+import com.cashflow.app.entity.BalanceSheetItem;
+import com.cashflow.app.entity.CashFlowSummary;
+import com.cashflow.app.entity.Report;
+import com.cashflow.app.entity.User;
+import com.cashflow.app.payload.response.BalanceSheetItemView;
+import com.cashflow.app.payload.response.FinancialSnapshot;
+import com.cashflow.app.payload.response.FinancialSnapshot.ReportSnapshot;
+import com.cashflow.app.payload.response.IncomeExpenseItemView;
+import com.cashflow.app.payload.response.ReportView;
+import com.cashflow.app.repository.BalanceSheetItemRepository;
+import com.cashflow.app.repository.IncomeExpenseItemRepository;
+import com.cashflow.app.repository.ReportRepository;
+import com.cashflow.app.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds the {@link FinancialSnapshot} attached to AI chat requests. Cash-flow figures
+ * come from the persisted {@link CashFlowSummary}, i.e. the same rules as the cash-flow
+ * endpoint. Report snapshots are cached per report and reused while the report's
+ * version is unchanged, so a chat about unchanged data costs a user lookup, a report
+ * list and one version read per report.
+ */
+@Service
+public class FinancialSnapshotService {
+
+    private static final Comparator<FinancialSnapshot.BalanceSheetLine> BALANCE_SHEET_ORDER = Comparator
+            .comparing((FinancialSnapshot.BalanceSheetLine line) -> line.category().name())
+            .thenComparing(FinancialSnapshot.BalanceSheetLine::name);
+
+    private static final Comparator<FinancialSnapshot.IncomeExpenseLine> INCOME_EXPENSE_ORDER = Comparator
+            .comparing((FinancialSnapshot.IncomeExpenseLine line) -> line.type().name())
+            .thenComparing(line -> line.category().name())
+            .thenComparing(FinancialSnapshot.IncomeExpenseLine::name);
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    ReportRepository reportRepository;
+
+    @Autowired
+    BalanceSheetItemRepository balanceSheetItemRepository;
+
+    @Autowired
+    IncomeExpenseItemRepository incomeExpenseItemRepository;
+
+    @Autowired
+    CashFlowService cashFlowService;
+
+    private final Cache<Long, ReportSnapshot> reports;
+
+    public FinancialSnapshotService(@Value("${ai.snapshot.cache.max-size:10000}") long maxSize,
+            @Value("${ai.snapshot.cache.ttl:30m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.reports = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, reports, "financialSnapshots");
+    }
+
+    /**
+     * Returns the user's snapshot, or {@code null} if the user does not exist.
+     */
+    public FinancialSnapshot forUser(Long userId) {
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        // Ordered by id
+        List<ReportView> userReports = reportRepository.findViewsByUserId(userId);
+        List<ReportSnapshot> snapshots = new ArrayList<>(userReports.size());
+        for (ReportView report : userReports) {
+            // Read the version first: a snapshot built from newer items is merely rebuilt once more
+            long version = cashFlowService.version(report.id());
+            ReportSnapshot snapshot = reports.getIfPresent(report.id());
+            if (snapshot == null || snapshot.version() != version) {
+                snapshot = build(report, version);
+                reports.put(report.id(), snapshot);
+            }
+            snapshots.add(snapshot);
+        }
+
+        return new FinancialSnapshot(
+                new FinancialSnapshot.UserInfo(user.getUsername(), user.getEmail(), user.getGender(), user.getAge()),
+                snapshots);
+    }
+
+    private ReportSnapshot build(ReportView report, long version) {
+        Long reportId = report.id();
+
+        double totalAssets = 0;
+        double totalDebts = 0;
+        List<FinancialSnapshot.BalanceSheetLine> bsLines = new ArrayList<>();
+        for (BalanceSheetItemView item : balanceSheetItemRepository.findViewsByReportId(reportId)) {
+            double amount = item.amount() != null ? item.amount() : 0.0;
+            if (isDebt(item.category())) {
+                totalDebts += amount;
+            } else {
+                totalAssets += amount;
+            }
+            bsLines.add(new FinancialSnapshot.BalanceSheetLine(item.id(), item.name(), item.amount(),
+                    item.category(), item.note(), item.isInterest(), item.interestAmount()));
+        }
+        bsLines.sort(BALANCE_SHEET_ORDER);
+
+        List<FinancialSnapshot.IncomeExpenseLine> ieLines = new ArrayList<>();
+        for (IncomeExpenseItemView item : incomeExpenseItemRepository.findViewsByReportId(reportId)) {
+            ieLines.add(new FinancialSnapshot.IncomeExpenseLine(item.id(), item.name(), item.amount(),
+                    item.category(), item.type(), item.note(), item.isInterest(), item.interestAmount()));
+        }
+        ieLines.sort(INCOME_EXPENSE_ORDER);
+
+        CashFlowSummary summary = cashFlowService.getSummary(reportId);
+        FinancialSnapshot.CashFlow cashFlow = new FinancialSnapshot.CashFlow(summary.getTotalIncome(),
+                summary.getTotalExpense(), summary.getMonthlyCashFlow(), summary.getLaborIncome(),
+                summary.getAssetIncome(), summary.getLivingExpense(), summary.getInterestExpense(),
+                summary.getAssetExpense());
+
+        return new ReportSnapshot(reportId, version, report.name(),
+                report.type() == Report.ReportType.PERSONAL ? "个人" : "家庭",
+                new FinancialSnapshot.BalanceSheet(totalAssets, totalDebts, totalAssets - totalDebts, bsLines),
+                new FinancialSnapshot.IncomeExpense(ieLines),
+                cashFlow);
+    }
+
+    private static boolean isDebt(BalanceSheetItem.Category category) {
+        return category == BalanceSheetItem.Category.CONSUMER_DEBT ||
+                category == BalanceSheetItem.Category.INVESTMENT_DEBT ||
+                category == BalanceSheetItem.Category.PERSONAL_DEBT;
+    }
+}
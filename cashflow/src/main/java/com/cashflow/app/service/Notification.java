@@ -0,0 +1,12 @@
+package com.cashflow.app.service;
+
+/**
+ * A verification code queued for delivery. {@code attempt} counts previous failed
+ * sends; {@code enqueuedAt} is the {@link System#nanoTime()} of the first enqueue.
+ */
+public record Notification(String channel, String target, String code, int attempt, long enqueuedAt) {
+
+    Notification retry() {
+        return new Notification(channel, target, code, attempt + 1, enqueuedAt);
+    }
+}
@@ -0,0 +1,256 @@
+package com.cashflow.app.service;
+
+import com.cashflow.app.entity.NotificationDeadLetter;
+import com.cashflow.app.repository.NotificationDeadLetterRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers verification codes off the request thread. Each channel has a bounded queue
+ * drained by its own worker threads, which hand whatever has piled up (up to
+ * {@code app.notification.batch-size}) to the channel in one call, so a burst of
+ * sign-ups turns into a few SMTP sessions instead of one per code. Failed sends are
+ * retried with exponential backoff and jitter; codes that still fail, or outlive the
+ * code TTL, are recorded as {@link NotificationDeadLetter}s. A full queue is reported
+ * to the caller instead of dropping the code.
+ */
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final Map<String, Channel> channels;
+    private final NotificationDeadLetterRepository deadLetterRepository;
+    private final ScheduledExecutorService retryScheduler;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long maxAgeNanos;
+    private volatile boolean running = true;
+
+    public NotificationDispatcher(List<NotificationService> services,
+            NotificationDeadLetterRepository deadLetterRepository,
+            @Value("${app.notification.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.notification.workers:2}") int workers,
+            @Value("${app.notification.batch-size:50}") int batchSize,
+            @Value("${app.notification.max-attempts:4}") int maxAttempts,
+            @Value("${app.notification.initial-backoff:2s}") Duration initialBackoff,
+            @Value("${app.notification.max-backoff:1m}") Duration maxBackoff,
+            @Value("${app.verification.code-ttl:5m}") Duration codeTtl,
+            MeterRegistry meterRegistry) {
+        this.deadLetterRepository = deadLetterRepository;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.maxAgeNanos = codeTtl.toNanos();
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(daemon("notify-retry"));
+        this.channels = services.stream().collect(Collectors.toUnmodifiableMap(
+                service -> service.channel().toUpperCase(Locale.ROOT),
+                service -> new Channel(service, queueCapacity, workers, meterRegistry)));
+        this.channels.values().forEach(Channel::start);
+    }
+
+    public boolean supports(String channel) {
+        return channel != null && channels.containsKey(channel.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Queues a code for delivery. Returns {@code false} if the channel is unknown or its
+     * queue is full.
+     */
+    public boolean dispatch(String channel, String target, String code) {
+        Channel ch = channel != null ? channels.get(channel.toUpperCase(Locale.ROOT)) : null;
+        if (ch == null || !running) {
+            return false;
+        }
+        if (!ch.queue.offer(new Notification(ch.name, target, code, 0, System.nanoTime()))) {
+            ch.rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        int pendingRetries = retryScheduler.shutdownNow().size();
+        if (pendingRetries > 0) {
+            logger.warn("{} notification retries dropped at shutdown", pendingRetries);
+        }
+        for (Channel channel : channels.values()) {
+            channel.workers.shutdown();
+        }
+        for (Channel channel : channels.values()) {
+            if (!channel.workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                channel.workers.shutdownNow();
+            }
+            if (!channel.queue.isEmpty()) {
+                logger.warn("{} {} notifications not sent at shutdown", channel.queue.size(), channel.name);
+            }
+        }
+    }
+
+    private void retryOrDeadLetter(Channel channel, Notification notification, Exception cause) {
+        Notification next = notification.retry();
+        if (next.attempt() >= maxAttempts || System.nanoTime() - notification.enqueuedAt() > maxAgeNanos) {
+            deadLetter(channel, next, cause);
+            return;
+        }
+        channel.retries.increment();
+        long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(notification.attempt(), 20));
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        logger.warn("{} notification to {} failed (attempt {}), retrying in {} ms: {}", channel.name,
+                notification.target(), next.attempt(), delay, cause.getMessage());
+        try {
+            retryScheduler.schedule(() -> {
+                if (!channel.queue.offer(next)) {
+                    retryOrDeadLetter(channel, next, new IllegalStateException("Notification queue is full"));
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // Scheduler already shut down
+            deadLetter(channel, next, cause);
+        }
+    }
+
+    private void deadLetter(Channel channel, Notification notification, Exception cause) {
+        channel.deadLetters.increment();
+        logger.error("{} notification to {} dead-lettered after {} attempts: {}", channel.name,
+                notification.target(), notification.attempt(), cause.getMessage());
+        try {
+            NotificationDeadLetter deadLetter = new NotificationDeadLetter();
+            deadLetter.setChannel(channel.name);
+            deadLetter.setTarget(notification.target());
+            deadLetter.setAttempts(notification.attempt());
+            String error = String.valueOf(cause.getMessage());
+            deadLetter.setError(error.length() > 1000 ? error.substring(0, 1000) : error);
+            deadLetter.setCreatedAt(LocalDateTime.now());
+            deadLetterRepository.save(deadLetter);
+        } catch (Exception e) {
+            logger.error("Failed to record dead letter for {}: {}", notification.target(), e.getMessage());
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private final class Channel {
+
+        final String name;
+        final NotificationService service;
+        final BlockingQueue<Notification> queue;
+        final int workerCount;
+        final ExecutorService workers;
+        final Timer batchTimer;
+        final Timer deliveryTimer;
+        final Counter rejected;
+        final Counter retries;
+        final Counter deadLetters;
+
+        Channel(NotificationService service, int queueCapacity, int workerCount, MeterRegistry registry) {
+            this.name = service.channel().toUpperCase(Locale.ROOT);
+            this.service = service;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.workerCount = workerCount;
+            this.workers = Executors.newFixedThreadPool(workerCount, daemon("notify-" + name.toLowerCase(Locale.ROOT)));
+            String tag = name.toLowerCase(Locale.ROOT);
+            Gauge.builder("notification.queue.depth", queue, BlockingQueue::size)
+                    .description("Notifications waiting to be sent")
+                    .tag("channel", tag)
+                    .register(registry);
+            this.batchTimer = Timer.builder("notification.send")
+                    .description("Duration of one batch send call")
+                    .tag("channel", tag)
+                    .register(registry);
+            this.deliveryTimer = Timer.builder("notification.delivery")
+                    .description("Time from enqueue to successful send")
+                    .tag("channel", tag)
+                    .register(registry);
+            Function<String, Counter> counter = metric -> Counter.builder(metric)
+                    .tag("channel", tag)
+                    .register(registry);
+            this.rejected = counter.apply("notification.rejected");
+            this.retries = counter.apply("notification.retries");
+            this.deadLetters = counter.apply("notification.dead_letters");
+        }
+
+        void start() {
+            for (int i = 0; i < workerCount; i++) {
+                workers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            List<Notification> batch = new ArrayList<>(batchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    Notification first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    sendBatch(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        private void sendBatch(List<Notification> batch) {
+            Map<Notification, Exception> failed;
+            long start = System.nanoTime();
+            try {
+                failed = service.send(batch);
+            } catch (Exception e) {
+                failed = batch.stream().collect(Collectors.toMap(Function.identity(), n -> e, (a, b) -> a));
+            }
+            long now = System.nanoTime();
+            batchTimer.record(now - start, TimeUnit.NANOSECONDS);
+            for (Notification notification : batch) {
+                Exception cause = failed.get(notification);
+                if (cause == null) {
+                    deliveryTimer.record(now - notification.enqueuedAt(), TimeUnit.NANOSECONDS);
+                } else {
+                    retryOrDeadLetter(this, notification, cause);
+                }
+            }
+        }
+    }
+}
@@ -1,7 +1,19 @@
 package com.cashflow.app.service;
 
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A delivery channel for verification codes, driven by the
+ * {@link NotificationDispatcher}'s worker threads.
+ */
 public interface NotificationService {
-    void sendVerificationCode(String target, String code);
+    /** Registration method this channel serves, e.g. {@code EMAIL} or {@code PHONE}. */
+    String channel();
 
-    boolean supports(String registrationMethod);
+    /**
+     * Sends one batch and returns the notifications that failed, with their cause;
+     * an empty map means the whole batch was sent.
+     */
+    Map<Notification, Exception> send(List<Notification> batch);
 }
@@ -0,0 +1,16 @@
+package com.cashflow.app.service;
+
+import java.time.Duration;
+
+/**
+ * Token buckets by key, selected with {@code app.verification.store} like the
+ * {@link VerificationCodeStore}.
+ */
+public interface RateLimitStore {
+    /**
+     * Takes a token from the bucket of {@code key}, which holds up to {@code capacity}
+     * tokens and gains one every {@code refillPeriod}. Returns 0 if a token was taken,
+     * otherwise the milliseconds until one is available.
+     */
+    long tryAcquire(String key, int capacity, Duration refillPeriod);
+}
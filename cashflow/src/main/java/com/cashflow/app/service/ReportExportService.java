@@ -0,0 +1,268 @@
+package com.cashflow.app.service;
+
+import com.cashflow.app.entity.CashFlowSummary;
+import com.cashflow.app.payload.response.BalanceSheetItemView;
+import com.cashflow.app.payload.response.IncomeExpenseItemView;
+import com.cashflow.app.repository.BalanceSheetItemRepository;
+import com.cashflow.app.repository.IncomeExpenseItemRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams the items of a report, followed by its cash-flow totals, as CSV or NDJSON.
+ * Rows are read as plain projections (nothing enters the persistence context) and go
+ * from a database cursor straight to the response, so memory use does not grow with
+ * the size of the report.
+ *
+ * <p>
+ * Every row has the same columns: {@code record} ({@code balance_sheet},
+ * {@code income_expense} or {@code cashflow}), {@code id}, {@code type},
+ * {@code category}, {@code name}, {@code amount}, {@code isInterest},
+ * {@code interestAmount} and {@code note}. Cash-flow rows carry the total name (e.g.
+ * {@code laborIncome}) in {@code name}.
+ */
+@Service
+public class ReportExportService {
+
+    public enum Format {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        public final String contentType;
+        public final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+    }
+
+    private static final String[] COLUMNS = { "record", "id", "type", "category", "name", "amount", "isInterest",
+            "interestAmount", "note" };
+
+    @Autowired
+    BalanceSheetItemRepository balanceSheetItemRepository;
+
+    @Autowired
+    IncomeExpenseItemRepository incomeExpenseItemRepository;
+
+    @Autowired
+    CashFlowService cashFlowService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    public StreamingResponseBody export(Long reportId, Format format) {
+        // Read (or build) the summary up front: the item cursors below must have the connection to themselves
+        CashFlowSummary summary = cashFlowService.getSummary(reportId);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        return out -> {
+            try (RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out)) {
+                readOnly.executeWithoutResult(status -> {
+                    try {
+                        writeItems(reportId, summary, writer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    private void writeItems(Long reportId, CashFlowSummary summary, RowWriter writer) throws IOException {
+        writer.begin();
+        try (Stream<BalanceSheetItemView> items = balanceSheetItemRepository.streamByReportId(reportId)) {
+            for (Iterator<BalanceSheetItemView> it = items.iterator(); it.hasNext();) {
+                BalanceSheetItemView item = it.next();
+                writer.row("balance_sheet", item.id(), null, item.category(), item.name(),
+                        item.amount(), item.isInterest(), item.interestAmount(), item.note());
+            }
+        }
+        try (Stream<IncomeExpenseItemView> items = incomeExpenseItemRepository.streamByReportId(reportId)) {
+            for (Iterator<IncomeExpenseItemView> it = items.iterator(); it.hasNext();) {
+                IncomeExpenseItemView item = it.next();
+                writer.row("income_expense", item.id(), item.type(), item.category(), item.name(),
+                        item.amount(), item.isInterest(), item.interestAmount(), item.note());
+            }
+        }
+        writeTotal(writer, "laborIncome", summary.getLaborIncome());
+        writeTotal(writer, "assetIncome", summary.getAssetIncome());
+        writeTotal(writer, "livingExpense", summary.getLivingExpense());
+        writeTotal(writer, "interestExpense", summary.getInterestExpense());
+        writeTotal(writer, "assetExpense", summary.getAssetExpense());
+        writeTotal(writer, "totalIncome", summary.getTotalIncome());
+        writeTotal(writer, "totalExpense", summary.getTotalExpense());
+        writeTotal(writer, "monthlyCashFlow", summary.getMonthlyCashFlow());
+    }
+
+    private static void writeTotal(RowWriter writer, String name, double amount) throws IOException {
+        writer.row("cashflow", null, null, null, name, amount, null, null, null);
+    }
+
+    private interface RowWriter extends AutoCloseable {
+        /** Writes the header, if any, and flushes so the client gets the first bytes right away. */
+        void begin() throws IOException;
+
+        void row(String record, Long id, Enum<?> type, Enum<?> category, String name, Double amount,
+                Boolean isInterest, Double interestAmount, String note) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final BufferedWriter out;
+
+        CsvRowWriter(OutputStream out) {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void begin() throws IOException {
+            // BOM so that Excel opens the (mostly Chinese) names as UTF-8
+            out.write('\uFEFF');
+            out.write(String.join(",", COLUMNS));
+            out.write("\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void row(String record, Long id, Enum<?> type, Enum<?> category, String name, Double amount,
+                Boolean isInterest, Double interestAmount, String note) throws IOException {
+            out.write(record);
+            out.write(',');
+            if (id != null) {
+                out.write(id.toString());
+            }
+            out.write(',');
+            if (type != null) {
+                out.write(type.name());
+            }
+            out.write(',');
+            if (category != null) {
+                out.write(category.name());
+            }
+            out.write(',');
+            writeText(name);
+            out.write(',');
+            writeNumber(amount);
+            out.write(',');
+            if (isInterest != null) {
+                out.write(isInterest.toString());
+            }
+            out.write(',');
+            writeNumber(interestAmount);
+            out.write(',');
+            writeText(note);
+            out.write("\r\n");
+        }
+
+        private void writeNumber(Double value) throws IOException {
+            if (value != null) {
+                // Plain notation: Double.toString would write 1.0E7
+                out.write(BigDecimal.valueOf(value).toPlainString());
+            }
+        }
+
+        private void writeText(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator out;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            this.out = objectMapper.getFactory().createGenerator(out);
+            // The response stream is closed by the container
+            this.out.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Rows are separated by the newline written after each of them, not by the default space
+            this.out.setPrettyPrinter(new MinimalPrettyPrinter(""));
+        }
+
+        @Override
+        public void begin() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void row(String record, Long id, Enum<?> type, Enum<?> category, String name, Double amount,
+                Boolean isInterest, Double interestAmount, String note) throws IOException {
+            out.writeStartObject();
+            out.writeStringField("record", record);
+            if (id != null) {
+                out.writeNumberField("id", id);
+            }
+            if (type != null) {
+                out.writeStringField("type", type.name());
+            }
+            if (category != null) {
+                out.writeStringField("category", category.name());
+            }
+            out.writeStringField("name", name);
+            if (amount != null) {
+                out.writeNumberField("amount", amount);
+            }
+            if (isInterest != null) {
+                out.writeBooleanField("isInterest", isInterest);
+            }
+            if (interestAmount != null) {
+                out.writeNumberField("interestAmount", interestAmount);
+            }
+            if (note != null) {
+                out.writeStringField("note", note);
+            }
+            out.writeEndObject();
+            out.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.cashflow.app.service;
+
+import com.cashflow.app.entity.BalanceSheetItem;
+import com.cashflow.app.entity.IncomeExpenseItem;
+import com.cashflow.app.entity.Report;
+import com.cashflow.app.payload.request.ItemBatchRequest;
+import com.cashflow.app.payload.request.ItemBatchRequest.Action;
+import com.cashflow.app.payload.request.ItemBatchRequest.Operation;
+import com.cashflow.app.payload.response.BalanceSheetItemView;
+import com.cashflow.app.payload.response.IncomeExpenseItemView;
+import com.cashflow.app.payload.response.ItemBatchResult;
+import com.cashflow.app.repository.BalanceSheetItemRepository;
+import com.cashflow.app.repository.IncomeExpenseItemRepository;
+import com.cashflow.app.repository.ReportRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Writes the items of a report. A batch runs in one transaction: the items it updates
+ * or deletes are loaded with one query per sheet, the writes go out as JDBC batches at
+ * flush, and the name sync and cash-flow refresh that each single-item endpoint runs
+ * happen once for the whole batch.
+ */
+@Service
+public class ReportItemService {
+
+    static final int MAX_OPERATIONS = 1000;
+
+    @Autowired
+    ReportRepository reportRepository;
+
+    @Autowired
+    BalanceSheetItemRepository balanceSheetItemRepository;
+
+    @Autowired
+    IncomeExpenseItemRepository incomeExpenseItemRepository;
+
+    @Autowired
+    CashFlowService cashFlowService;
+
+    /**
+     * Applies the operations of both sheets to the report. Answers 400 for a malformed
+     * operation, 404 for an unknown id and 403 for an item of another report, in which
+     * case nothing is written.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public ItemBatchResult applyBatch(Long reportId, ItemBatchRequest request) {
+        List<Operation<BalanceSheetItem>> bsOps = orEmpty(request.getBalanceSheet());
+        List<Operation<IncomeExpenseItem>> ieOps = orEmpty(request.getIncomeExpense());
+        if (bsOps.size() + ieOps.size() > MAX_OPERATIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A batch holds at most " + MAX_OPERATIONS + " operations");
+        }
+
+        Report report = reportRepository.getReferenceById(reportId);
+        List<BalanceSheetItem> bsItems = applyBalanceSheet(report, bsOps);
+        List<IncomeExpenseItem> ieItems = applyIncomeExpense(report, ieOps);
+
+        syncByName(reportId, bsItems.stream().filter(Objects::nonNull).toList(),
+                ieItems.stream().filter(Objects::nonNull).toList());
+        cashFlowService.refresh(reportId);
+        return new ItemBatchResult(
+                bsItems.stream().map(item -> item != null ? BalanceSheetItemView.of(item) : null).toList(),
+                ieItems.stream().map(item -> item != null ? IncomeExpenseItemView.of(item) : null).toList());
+    }
+
+    /**
+     * Copies amount and interest of each saved item to the first item of the same name
+     * on the other sheet, with one lookup per sheet. A name saved on both sheets keeps
+     * the balance-sheet values.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void syncByName(Long reportId, Collection<BalanceSheetItem> bsItems,
+            Collection<IncomeExpenseItem> ieItems) {
+        Map<String, BalanceSheetItem> bsByName = byName(bsItems, BalanceSheetItem::getName);
+        Map<String, IncomeExpenseItem> ieByName = byName(ieItems, IncomeExpenseItem::getName);
+        ieByName.keySet().removeAll(bsByName.keySet());
+
+        if (!bsByName.isEmpty()) {
+            Set<String> synced = new HashSet<>();
+            for (IncomeExpenseItem ie : incomeExpenseItemRepository.findByReportIdAndNameIn(reportId,
+                    bsByName.keySet())) {
+                BalanceSheetItem item = bsByName.get(ie.getName());
+                if (item != null && synced.add(ie.getName())) {
+                    ie.setAmount(item.getAmount());
+                    if (item.getIsInterest() != null) {
+                        ie.setIsInterest(item.getIsInterest());
+                    }
+                    if (item.getInterestAmount() != null) {
+                        ie.setInterestAmount(item.getInterestAmount());
+                    }
+                }
+            }
+        }
+        if (!ieByName.isEmpty()) {
+            Set<String> synced = new HashSet<>();
+            for (BalanceSheetItem bs : balanceSheetItemRepository.findByReportIdAndNameIn(reportId,
+                    ieByName.keySet())) {
+                IncomeExpenseItem item = ieByName.get(bs.getName());
+                if (item != null && synced.add(bs.getName())) {
+                    bs.setAmount(item.getAmount());
+                    if (item.getIsInterest() != null) {
+                        bs.setIsInterest(item.getIsInterest());
+                    }
+                    if (item.getInterestAmount() != null) {
+                        bs.setInterestAmount(item.getInterestAmount());
+                    }
+                }
+            }
+        }
+    }
+
+    // The saved item of each operation, null for deletes
+    private List<BalanceSheetItem> applyBalanceSheet(Report report, List<Operation<BalanceSheetItem>> ops) {
+        Map<Long, BalanceSheetItem> existing = load(report.getId(), ops, balanceSheetItemRepository,
+                BalanceSheetItem::getId, item -> item.getReport().getId());
+        List<BalanceSheetItem> saved = new ArrayList<>(ops.size());
+        List<BalanceSheetItem> created = new ArrayList<>();
+        List<BalanceSheetItem> deleted = new ArrayList<>();
+        for (Operation<BalanceSheetItem> op : ops) {
+            BalanceSheetItem details = op.getItem();
+            switch (op.getAction()) {
+                case CREATE -> {
+                    details.setId(null);
+                    details.setReport(report);
+                    created.add(details);
+                    saved.add(details);
+                }
+                case UPDATE -> {
+                    BalanceSheetItem item = existing.get(op.getId());
+                    item.setName(details.getName());
+                    item.setAmount(details.getAmount());
+                    item.setCategory(details.getCategory());
+                    item.setNote(details.getNote());
+                    item.setIsInterest(details.getIsInterest());
+                    item.setInterestAmount(details.getInterestAmount());
+                    saved.add(item);
+                }
+                case DELETE -> {
+                    deleted.add(existing.get(op.getId()));
+                    saved.add(null);
+                }
+            }
+        }
+        balanceSheetItemRepository.deleteAll(deleted);
+        balanceSheetItemRepository.saveAll(created);
+        return saved;
+    }
+
+    // The saved item of each operation, null for deletes
+    private List<IncomeExpenseItem> applyIncomeExpense(Report report, List<Operation<IncomeExpenseItem>> ops) {
+        Map<Long, IncomeExpenseItem> existing = load(report.getId(), ops, incomeExpenseItemRepository,
+                IncomeExpenseItem::getId, item -> item.getReport().getId());
+        List<IncomeExpenseItem> saved = new ArrayList<>(ops.size());
+        List<IncomeExpenseItem> created = new ArrayList<>();
+        List<IncomeExpenseItem> deleted = new ArrayList<>();
+        for (Operation<IncomeExpenseItem> op : ops) {
+            IncomeExpenseItem details = op.getItem();
+            switch (op.getAction()) {
+                case CREATE -> {
+                    details.setId(null);
+                    details.setReport(report);
+                    created.add(details);
+                    saved.add(details);
+                }
+                case UPDATE -> {
+                    IncomeExpenseItem item = existing.get(op.getId());
+                    item.setName(details.getName());
+                    item.setAmount(details.getAmount());
+                    item.setCategory(details.getCategory());
+                    item.setType(details.getType());
+                    item.setIsInterest(details.getIsInterest());
+                    item.setInterestAmount(details.getInterestAmount());
+                    item.setNote(details.getNote());
+                    saved.add(item);
+                }
+                case DELETE -> {
+                    deleted.add(existing.get(op.getId()));
+                    saved.add(null);
+                }
+            }
+        }
+        incomeExpenseItemRepository.deleteAll(deleted);
+        incomeExpenseItemRepository.saveAll(created);
+        return saved;
+    }
+
+    /**
+     * Validates the operations and loads the items they update or delete, by id, in one
+     * query.
+     */
+    private static <E> Map<Long, E> load(Long reportId, List<Operation<E>> ops, JpaRepository<E, Long> repository,
+            Function<E, Long> idOf, Function<E, Long> reportIdOf) {
+        Set<Long> ids = new HashSet<>();
+        for (Operation<E> op : ops) {
+            if (op == null || op.getAction() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Operation without an action");
+            }
+            if (op.getAction() != Action.DELETE && op.getItem() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, op.getAction() + " without an item");
+            }
+            if (op.getAction() == Action.CREATE) {
+                continue;
+            }
+            if (op.getId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, op.getAction() + " without an id");
+            }
+            if (!ids.add(op.getId())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Item " + op.getId() + " appears more than once");
+            }
+        }
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, E> items = new HashMap<>();
+        for (E item : repository.findAllById(ids)) {
+            if (!reportId.equals(reportIdOf.apply(item))) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Item does not belong to this report");
+            }
+            items.put(idOf.apply(item), item);
+        }
+        if (items.size() < ids.size()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Item not found");
+        }
+        return items;
+    }
+
+    // Last item per name wins, as it would with one request per item
+    private static <E> Map<String, E> byName(Collection<E> items, Function<E, String> nameOf) {
+        Map<String, E> byName = new LinkedHashMap<>();
+        for (E item : items) {
+            if (nameOf.apply(item) != null) {
+                byName.put(nameOf.apply(item), item);
+            }
+        }
+        return byName;
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list != null ? list : List.of();
+    }
+}
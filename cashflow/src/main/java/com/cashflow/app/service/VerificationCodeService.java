@@ -1,66 +1,63 @@
 package com.cashflow.app.service;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * One-time verification codes, keyed by normalized email/phone and kept in the
+ * configured {@link VerificationCodeStore}.
+ */
 @Service
 public class VerificationCodeService {
-    // In-memory store: Key = Email/Phone, Value = {Code, ExpiryTime}
-    private final Map<String, CodeData> codeStore = new ConcurrentHashMap<>();
-    private final Random random = new Random();
-    private static final long EXPIRATION_TIME_MS = TimeUnit.MINUTES.toMillis(5);
 
+    private final SecureRandom random = new SecureRandom();
+    private final VerificationCodeStore codeStore;
+    private final Duration ttl;
+    private final int maxAttempts;
+
+    public VerificationCodeService(VerificationCodeStore codeStore,
+            @Value("${app.verification.code-ttl:5m}") Duration ttl,
+            @Value("${app.verification.max-attempts:5}") int maxAttempts,
+            MeterRegistry meterRegistry) {
+        this.codeStore = codeStore;
+        this.ttl = ttl;
+        this.maxAttempts = maxAttempts;
+        Gauge.builder("verification.codes", codeStore, VerificationCodeStore::size)
+                .description("Verification codes waiting to be used")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Issues a new code for the identifier, replacing any previous one. Returns
+     * {@code null} if the store is full and the identifier has no code yet.
+     */
     public String generateCode(String identifier) {
-        if (identifier != null)
-            identifier = identifier.trim().toLowerCase();
+        identifier = normalize(identifier);
         String code = String.format("%06d", random.nextInt(1000000));
-        codeStore.put(identifier, new CodeData(code, System.currentTimeMillis() + EXPIRATION_TIME_MS));
-        System.out.println("[DEBUG] Generated code " + code + " for identifier: [" + identifier + "]");
-        return code;
+        return codeStore.save(identifier, code, ttl) ? code : null;
     }
 
+    /**
+     * Checks a code and consumes it on success. A code is also dropped after
+     * {@code app.verification.max-attempts} wrong guesses.
+     */
     public boolean verifyCode(String identifier, String code) {
-        if (identifier != null)
-            identifier = identifier.trim().toLowerCase();
+        identifier = normalize(identifier);
         if (code != null)
             code = code.trim();
 
-        System.out.println("[DEBUG] Verifying code [" + code + "] for identifier: [" + identifier + "]");
-
         if (code == null || code.isEmpty() || identifier == null || identifier.isEmpty()) {
             return false;
         }
-
-        CodeData data = codeStore.get(identifier);
-        if (data == null) {
-            System.out.println("[DEBUG] No code found in store for identifier: [" + identifier + "]");
-            return false;
-        }
-
-        if (System.currentTimeMillis() > data.expiryTime) {
-            codeStore.remove(identifier);
-            return false;
-        }
-
-        boolean isValid = data.code.equals(code);
-        System.out.println(
-                "[DEBUG] Code match result: " + isValid + " (Stored: [" + data.code + "], Provided: [" + code + "])");
-        if (isValid) {
-            codeStore.remove(identifier); // One-time use
-        }
-        return isValid;
+        return codeStore.consume(identifier, code, maxAttempts);
     }
 
-    private static class CodeData {
-        String code;
-        long expiryTime;
-
-        CodeData(String code, long expiryTime) {
-            this.code = code;
-            this.expiryTime = expiryTime;
-        }
+    public static String normalize(String identifier) {
+        return identifier != null ? identifier.trim().toLowerCase() : null;
     }
 }
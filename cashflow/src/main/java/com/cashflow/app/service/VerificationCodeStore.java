@@ -0,0 +1,26 @@
+package com.cashflow.app.service;
+
+import java.time.Duration;
+
+/**
+ * Storage of pending verification codes, keyed by normalized email/phone. Selected with
+ * {@code app.verification.store}: {@code memory} (default, single instance) or
+ * {@code database} (shared by every instance behind a load balancer).
+ */
+public interface VerificationCodeStore {
+    /**
+     * Stores the code, replacing any previous one for the identifier. Returns
+     * {@code false} if the store is full and the identifier has no code yet.
+     */
+    boolean save(String identifier, String code, Duration ttl);
+
+    /**
+     * Returns {@code true} and removes the code if it matches and has not expired. A
+     * wrong guess counts as an attempt; the code is dropped after {@code maxAttempts}.
+     * At most one concurrent caller succeeds for a given code.
+     */
+    boolean consume(String identifier, String code, int maxAttempts);
+
+    /** Number of stored codes, possibly including expired ones not yet swept. */
+    long size();
+}
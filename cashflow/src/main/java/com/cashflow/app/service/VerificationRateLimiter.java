@@ -0,0 +1,79 @@
+package com.cashflow.app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets for {@code /api/auth/send-code}: one per target email/phone and one
+ * per client IP, kept in the configured {@link RateLimitStore}.
+ */
+@Component
+public class VerificationRateLimiter {
+
+    public enum Reason {
+        IP, IDENTIFIER, CAPACITY
+    }
+
+    private final RateLimitStore store;
+    private final int identifierCapacity;
+    private final Duration identifierRefill;
+    private final int ipCapacity;
+    private final Duration ipRefill;
+    private final MeterRegistry meterRegistry;
+
+    public VerificationRateLimiter(RateLimitStore store,
+            @Value("${app.verification.identifier-limit.capacity:3}") int identifierCapacity,
+            @Value("${app.verification.identifier-limit.refill-period:60s}") Duration identifierRefill,
+            @Value("${app.verification.ip-limit.capacity:20}") int ipCapacity,
+            @Value("${app.verification.ip-limit.refill-period:6s}") Duration ipRefill,
+            MeterRegistry meterRegistry) {
+        this.store = store;
+        this.identifierCapacity = identifierCapacity;
+        this.identifierRefill = identifierRefill;
+        this.ipCapacity = ipCapacity;
+        this.ipRefill = ipRefill;
+        this.meterRegistry = meterRegistry;
+        for (Reason reason : Reason.values()) {
+            rejected(reason);
+        }
+    }
+
+    /**
+     * Takes a token from the IP's bucket, then from the identifier's. Returns 0 if both
+     * had one, otherwise the seconds until the refusing bucket refills.
+     */
+    public long tryAcquire(String identifier, String clientIp) {
+        long wait = store.tryAcquire("ip:" + clientIp, ipCapacity, ipRefill);
+        if (wait > 0) {
+            rejected(Reason.IP).increment();
+            return toSeconds(wait);
+        }
+        wait = store.tryAcquire("id:" + identifier, identifierCapacity, identifierRefill);
+        if (wait > 0) {
+            rejected(Reason.IDENTIFIER).increment();
+            return toSeconds(wait);
+        }
+        return 0;
+    }
+
+    /** Counts a request refused for a reason other than a bucket, e.g. a full code store. */
+    public void recordRejection(Reason reason) {
+        rejected(reason).increment();
+    }
+
+    private Counter rejected(Reason reason) {
+        return Counter.builder("verification.rejected")
+                .description("Verification code requests refused")
+                .tag("reason", reason.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    private static long toSeconds(long millis) {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(millis + 999));
+    }
+}
@@ -0,0 +1,63 @@
+package com.cashflow.app.service.impl;
+
+import com.cashflow.app.repository.RateLimitBucketRepository;
+import com.cashflow.app.service.RateLimitStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Token buckets in the {@code rate_limit_buckets} table, so limits hold across
+ * instances. Taking a token is one conditional update of the bucket row (the same
+ * full-again-at arithmetic as the in-memory buckets); a missing row is created with
+ * {@code INSERT IGNORE}. Rows of buckets that have refilled carry no state and are
+ * swept.
+ */
+@Service
+@ConditionalOnProperty(name = "app.verification.store", havingValue = "database")
+public class DatabaseRateLimitStore implements RateLimitStore {
+
+    @Autowired
+    RateLimitBucketRepository rateLimitBucketRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public DatabaseRateLimitStore(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Transactional
+    public long tryAcquire(String key, int capacity, Duration refillPeriod) {
+        long interval = refillPeriod.toMillis();
+        long burst = interval * capacity;
+        long now = System.currentTimeMillis();
+        if (rateLimitBucketRepository.take(key, now, interval, burst) == 1
+                || rateLimitBucketRepository.create(key, now + interval) == 1
+                // Another instance created the row in the meantime
+                || rateLimitBucketRepository.take(key, now, interval, burst) == 1) {
+            return 0;
+        }
+        Long fullAt = rateLimitBucketRepository.findFullAt(key);
+        if (fullAt == null) {
+            return 0;
+        }
+        return Math.max(1, Math.max(fullAt, now) + interval - now - burst);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.verification.sweep-interval:1m}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        Integer batch;
+        do {
+            batch = transactionTemplate.execute(status -> rateLimitBucketRepository.deleteExpired(now,
+                    DatabaseVerificationCodeStore.SWEEP_BATCH));
+        } while (batch == DatabaseVerificationCodeStore.SWEEP_BATCH);
+    }
+}
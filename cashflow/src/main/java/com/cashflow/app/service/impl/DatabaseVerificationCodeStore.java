@@ -0,0 +1,93 @@
+package com.cashflow.app.service.impl;
+
+import com.cashflow.app.repository.VerificationCodeRepository;
+import com.cashflow.app.service.VerificationCodeStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Codes in the {@code verification_codes} table, so a code sent by one instance can be
+ * verified on any other. Every statement is a single-row conditional write on the
+ * primary key; consumption is a conditional delete, which only one caller can win.
+ * Expired rows are ignored by the queries and deleted in batches by a periodic sweep.
+ * The capacity check counts the live rows of the table, so it holds across instances;
+ * it runs only for identifiers without a code, which the send-code rate limits bound.
+ */
+@Service
+@ConditionalOnProperty(name = "app.verification.store", havingValue = "database")
+public class DatabaseVerificationCodeStore implements VerificationCodeStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseVerificationCodeStore.class);
+
+    static final int SWEEP_BATCH = 1000;
+
+    @Autowired
+    VerificationCodeRepository verificationCodeRepository;
+
+    private final TransactionTemplate transactionTemplate;
+    private final long maxCodes;
+    // Live rows as of the last sweep, for the gauge
+    private volatile long liveCodes;
+
+    public DatabaseVerificationCodeStore(@Value("${app.verification.max-codes:100000}") long maxCodes,
+            PlatformTransactionManager transactionManager) {
+        this.maxCodes = maxCodes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Transactional
+    public boolean save(String identifier, String code, Duration ttl) {
+        long now = System.currentTimeMillis();
+        if (!verificationCodeRepository.existsById(identifier)
+                && verificationCodeRepository.countLive(now) >= maxCodes) {
+            return false;
+        }
+        verificationCodeRepository.upsert(identifier, code, now + ttl.toMillis());
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public boolean consume(String identifier, String code, int maxAttempts) {
+        long now = System.currentTimeMillis();
+        if (verificationCodeRepository.consume(identifier, code, now) == 1) {
+            return true;
+        }
+        if (verificationCodeRepository.recordFailedAttempt(identifier, now) == 1) {
+            verificationCodeRepository.deleteExhausted(identifier, maxAttempts);
+        }
+        return false;
+    }
+
+    /** Live codes in the table as of the last sweep. */
+    @Override
+    public long size() {
+        return liveCodes;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.verification.sweep-interval:1m}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        int deleted = 0;
+        Integer batch;
+        do {
+            batch = transactionTemplate.execute(status -> verificationCodeRepository.deleteExpired(now, SWEEP_BATCH));
+            deleted += batch;
+        } while (batch == SWEEP_BATCH);
+        liveCodes = verificationCodeRepository.countLive(now);
+        if (deleted > 0) {
+            logger.debug("Swept {} expired verification codes, {} live", deleted, liveCodes);
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.cashflow.app.service.impl;
 
+import com.cashflow.app.service.Notification;
 import com.cashflow.app.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class EmailNotificationService implements NotificationService {
 
@@ -17,26 +22,46 @@ public class EmailNotificationService implements NotificationService {
     @Value("${spring.mail.username}")
     private String fromEmail;
 
-    @Async
     @Override
-    public void sendVerificationCode(String target, String code) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(target);
-        message.setSubject("CashFlow 注册验证码");
-        message.setText("您的注册验证码为: " + code + "\n\n该验证码 5 分钟内有效，请勿泄露给他人。");
-
-        try {
-            mailSender.send(message);
-            System.out.println("Email sent successfully to: " + target);
-        } catch (Exception e) {
-            System.err.println("Failed to send email to " + target + ": " + e.getMessage());
-            // In a production app, you might want to throw a custom exception or retry
-        }
+    public String channel() {
+        return "EMAIL";
     }
 
+    /**
+     * Sends the whole batch through one {@code send} call, i.e. one SMTP connection.
+     * Messages the server rejected are reported individually; a connection failure
+     * fails the whole batch.
+     */
     @Override
-    public boolean supports(String registrationMethod) {
-        return "EMAIL".equalsIgnoreCase(registrationMethod);
+    public Map<Notification, Exception> send(List<Notification> batch) {
+        Map<Object, Notification> byMessage = new IdentityHashMap<>(batch.size());
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < messages.length; i++) {
+            Notification notification = batch.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(fromEmail);
+            message.setTo(notification.target());
+            message.setSubject("CashFlow 注册验证码");
+            message.setText("您的注册验证码为: " + notification.code() + "\n\n该验证码 5 分钟内有效，请勿泄露给他人。");
+            messages[i] = message;
+            byMessage.put(message, notification);
+        }
+
+        try {
+            mailSender.send(messages);
+            return Map.of();
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                throw e;
+            }
+            Map<Notification, Exception> failed = new IdentityHashMap<>();
+            e.getFailedMessages().forEach((message, cause) -> {
+                Notification notification = byMessage.get(message);
+                if (notification != null) {
+                    failed.put(notification, cause);
+                }
+            });
+            return failed;
+        }
     }
 }
@@ -0,0 +1,91 @@
+package com.cashflow.app.service.impl;
+
+import com.cashflow.app.service.RateLimitStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets in process memory. A bucket is dropped once idle long enough to have
+ * refilled, so the map only holds recently active keys.
+ */
+@Service
+@ConditionalOnProperty(name = "app.verification.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private final Cache<String, TokenBucket> buckets;
+
+    public InMemoryRateLimitStore(@Value("${app.verification.limiter.max-keys:100000}") long maxKeys) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfter(new Expiry<String, TokenBucket>() {
+                    @Override
+                    public long expireAfterCreate(String key, TokenBucket value, long currentTime) {
+                        return value.burst;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, TokenBucket value, long currentTime,
+                            long currentDuration) {
+                        return value.burst;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, TokenBucket value, long currentTime,
+                            long currentDuration) {
+                        return value.burst;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public long tryAcquire(String key, int capacity, Duration refillPeriod) {
+        long wait = buckets.get(key, k -> new TokenBucket(capacity, refillPeriod.toNanos(), System::nanoTime)).tryAcquire();
+        return wait > 0 ? Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)) : 0;
+    }
+
+    /**
+     * Lock-free token bucket, kept as the time at which the bucket will be full again
+     * (GCRA): taking a token moves that time one interval forward, and the request is
+     * refused if it would then lie more than {@code capacity} intervals ahead.
+     */
+    static final class TokenBucket {
+
+        private final long interval;
+        private final long burst;
+        private final LongSupplier nanoTime;
+        private final AtomicLong fullAt;
+
+        TokenBucket(int capacity, long intervalNanos, LongSupplier nanoTime) {
+            this.interval = intervalNanos;
+            this.burst = capacity * intervalNanos;
+            this.nanoTime = nanoTime;
+            this.fullAt = new AtomicLong(nanoTime.getAsLong());
+        }
+
+        /** Returns 0 if a token was taken, otherwise the nanoseconds until one is available. */
+        long tryAcquire() {
+            while (true) {
+                long now = nanoTime.getAsLong();
+                long current = fullAt.get();
+                long next = (current - now > 0 ? current : now) + interval;
+                long ahead = next - now;
+                if (ahead > burst) {
+                    return ahead - burst;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.cashflow.app.service.impl;
+
+import com.cashflow.app.service.VerificationCodeStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Codes in process memory. Each code expires on its own (Caffeine's timer wheel, swept
+ * by a background scheduler) whether or not anyone verifies it, and new identifiers
+ * are refused once {@code app.verification.max-codes} codes are held instead of
+ * evicting codes users are waiting for.
+ */
+@Service
+@ConditionalOnProperty(name = "app.verification.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryVerificationCodeStore implements VerificationCodeStore {
+
+    private final Cache<String, CodeData> codes;
+    private final long maxCodes;
+
+    public InMemoryVerificationCodeStore(@Value("${app.verification.max-codes:100000}") long maxCodes) {
+        this.maxCodes = maxCodes;
+        this.codes = Caffeine.newBuilder()
+                .expireAfter(new Expiry<String, CodeData>() {
+                    @Override
+                    public long expireAfterCreate(String key, CodeData value, long currentTime) {
+                        return value.ttlNanos();
+                    }
+
+                    // A failed attempt replaces the entry but must not extend its lifetime
+                    @Override
+                    public long expireAfterUpdate(String key, CodeData value, long currentTime,
+                            long currentDuration) {
+                        return value.attempts() == 0 ? value.ttlNanos() : currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CodeData value, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .scheduler(Scheduler.systemScheduler())
+                .build();
+    }
+
+    @Override
+    public boolean save(String identifier, String code, Duration ttl) {
+        if (codes.estimatedSize() >= maxCodes && codes.getIfPresent(identifier) == null) {
+            codes.cleanUp();
+            if (codes.estimatedSize() >= maxCodes) {
+                return false;
+            }
+        }
+        codes.put(identifier, new CodeData(code, 0, ttl.toNanos()));
+        return true;
+    }
+
+    @Override
+    public boolean consume(String identifier, String code, int maxAttempts) {
+        boolean[] valid = { false };
+        codes.asMap().computeIfPresent(identifier, (key, data) -> {
+            if (data.code().equals(code)) {
+                valid[0] = true;
+                return null; // One-time use
+            }
+            int attempts = data.attempts() + 1;
+            return attempts >= maxAttempts ? null : new CodeData(data.code(), attempts, data.ttlNanos());
+        });
+        return valid[0];
+    }
+
+    @Override
+    public long size() {
+        return codes.estimatedSize();
+    }
+
+    private record CodeData(String code, int attempts, long ttlNanos) {
+    }
+}
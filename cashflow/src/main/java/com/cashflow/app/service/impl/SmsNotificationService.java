@@ -1,13 +1,21 @@
 package com.cashflow.app.service.impl;
 
+import com.cashflow.app.service.Notification;
 import com.cashflow.app.service.NotificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class SmsNotificationService implements NotificationService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SmsNotificationService.class);
+
     @Value("${app.sms.provider:mock}")
     private String provider;
 
@@ -23,48 +31,52 @@ public class SmsNotificationService implements NotificationService {
     @Value("${app.sms.template-code:}")
     private String templateCode;
 
-    @Async
     @Override
-    public void sendVerificationCode(String target, String code) {
+    public String channel() {
+        return "PHONE";
+    }
+
+    @Override
+    public Map<Notification, Exception> send(List<Notification> batch) {
+        Map<Notification, Exception> failed = new HashMap<>();
+        for (Notification notification : batch) {
+            try {
+                sendVerificationCode(notification.target(), notification.code());
+            } catch (Exception e) {
+                failed.put(notification, e);
+            }
+        }
+        return failed;
+    }
+
+    private void sendVerificationCode(String target, String code) {
         if ("aliyun".equalsIgnoreCase(provider)) {
             sendAliyunSms(target, code);
         } else if ("twilio".equalsIgnoreCase(provider)) {
             sendTwilioSms(target, code);
         } else {
             // Mock/Fallback
-            System.out.println("========================================");
-            System.out.println("MOCK SMS SENT TO: " + target);
-            System.out.println("VERIFICATION CODE: " + code);
-            System.out.println("DEBUG: Check application.properties for real SMS configuration.");
-            System.out.println("========================================");
+            logger.info("MOCK SMS SENT TO: {}\nVERIFICATION CODE: {}", target, code);
         }
     }
 
     private void sendAliyunSms(String target, String code) {
         // Placeholder for Aliyun SMS SDK implementation
         // Requirements: com.aliyun:dysmsapi20170525
-        System.out.println("Attempting to send Aliyun SMS to: " + target);
         if (accessKeyId.isEmpty() || accessKeySecret.isEmpty()) {
-            System.err.println("Aliyun credentials missing in application.properties!");
-            return;
+            throw new IllegalStateException("Aliyun credentials missing in application.properties");
         }
         // Verification code would be sent here using the SDK
-        System.out.println("Using SignName: " + signName + ", Template: " + templateCode);
+        logger.debug("Sending Aliyun SMS to {} (SignName: {}, Template: {})", target, signName, templateCode);
     }
 
     private void sendTwilioSms(String target, String code) {
         // Placeholder for Twilio SMS SDK implementation
         // Requirements: com.twilio.sdk:twilio
-        System.out.println("Attempting to send Twilio SMS to: " + target);
         if (accessKeyId.isEmpty() || accessKeySecret.isEmpty()) {
-            System.err.println("Twilio credentials missing (SID/Token)!");
-            return;
+            throw new IllegalStateException("Twilio credentials missing (SID/Token)");
         }
         // SMS would be sent here using Twilio.init(accessKeyId, accessKeySecret)
-    }
-
-    @Override
-    public boolean supports(String registrationMethod) {
-        return "PHONE".equalsIgnoreCase(registrationMethod);
+        logger.debug("Sending Twilio SMS to {}", target);
     }
 }
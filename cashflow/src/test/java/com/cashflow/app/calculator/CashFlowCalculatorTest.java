@@ -0,0 +1,188 @@
+package com.cashflow.app.calculator;
+
+import com.cashflow.app.calculator.CashFlowCalculator.Bucket;
+import com.cashflow.app.calculator.CashFlowCalculator.Kind;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CashFlowCalculatorTest {
+
+    private final CashFlowCalculator calculator = new CashFlowCalculator();
+
+    @Test
+    void debtInterestIsAnAssetExpenseLineWithInterestSuffix() {
+        calculator.addBalanceSheetItem(true, "car", true, 50);
+        calculator.addBalanceSheetItem(true, "card", true, 0);
+        calculator.addBalanceSheetItem(true, "mortgage", false, 80);
+        calculator.addBalanceSheetItem(false, "cash", true, 99);
+
+        CashFlowResult result = calculator.calculate();
+
+        assertThat(lines(result, Bucket.ASSET_EXPENSE)).containsExactly(Map.entry("car (利息)", 50.0));
+        assertThat(result.total(Bucket.ASSET_EXPENSE)).isEqualTo(50.0);
+        assertThat(CashFlowCalculator.debtInterestLine("car")).isEqualTo("car (利息)");
+    }
+
+    @Test
+    void debtRepaymentCountsOnlyItsInterest() {
+        calculator.addBalanceSheetItem(true, "car", false, 0);
+        calculator.addIncomeExpenseItem(true, Kind.LOAN_REPAYMENT, "car", 300, true, 40);
+        calculator.addIncomeExpenseItem(true, Kind.LOAN_REPAYMENT, "loan", 200, false, 0);
+        calculator.addIncomeExpenseItem(true, Kind.ASSET_EXPENSE, "stock", 100, false, 0);
+
+        CashFlowResult result = calculator.calculate();
+
+        assertThat(lines(result, Bucket.ASSET_EXPENSE))
+                .containsExactlyInAnyOrderEntriesOf(Map.of("car", 40.0, "loan", 200.0, "stock", 100.0));
+        // Interest of a synced debt is not an interest expense
+        assertThat(result.total(Bucket.INTEREST_EXPENSE)).isZero();
+    }
+
+    @Test
+    void namedBucketsKeepTheLastAmountPerName() {
+        calculator.addIncomeExpenseItem(false, Kind.ASSET_INCOME, "rent", 700, false, 0);
+        calculator.addIncomeExpenseItem(false, Kind.ASSET_INCOME, "rent", 650, false, 0);
+        calculator.addIncomeExpenseItem(true, Kind.LIVING_EXPENSE, "card", 800, true, 0);
+        calculator.addIncomeExpenseItem(true, Kind.LIVING_EXPENSE, "card", 500, true, 0);
+        calculator.addIncomeExpenseItem(false, Kind.LABOR_INCOME, "salary", 5000, false, 0);
+        calculator.addIncomeExpenseItem(false, Kind.LABOR_INCOME, "salary", 1000, false, 0);
+
+        CashFlowResult result = calculator.calculate();
+
+        assertThat(lines(result, Bucket.ASSET_INCOME)).containsExactly(Map.entry("rent", 650.0));
+        assertThat(lines(result, Bucket.INTEREST_EXPENSE)).containsExactly(Map.entry("card", 500.0));
+        // Labor income and living expense list items and are never merged
+        assertThat(result.total(Bucket.LABOR_INCOME)).isEqualTo(6000.0);
+        assertThat(result.total(Bucket.LIVING_EXPENSE)).isEqualTo(1300.0);
+        assertThat(result.itemCount(Bucket.LIVING_EXPENSE)).isEqualTo(2);
+    }
+
+    @Test
+    void itemNamedLikeADebtInterestLineReplacesIt() {
+        calculator.addBalanceSheetItem(true, "car", true, 50);
+        calculator.addIncomeExpenseItem(true, Kind.ASSET_EXPENSE, "car (利息)", 70, false, 0);
+
+        assertThat(lines(calculator.calculate(), Bucket.ASSET_EXPENSE)).containsExactly(Map.entry("car (利息)", 70.0));
+    }
+
+    @Test
+    void matchesBaselineRulesOnRandomReports() {
+        Random random = new Random(42);
+        String[] names = {"car", "rent", "salary", "food", "stock", "card", "car (利息)", "loan"};
+        Kind[] kinds = Kind.values();
+        for (int round = 0; round < 500; round++) {
+            List<Baseline.Debt> debts = new ArrayList<>();
+            List<Baseline.Item> items = new ArrayList<>();
+            calculator.reset();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                Baseline.Debt debt = new Baseline.Debt(random.nextBoolean(), names[random.nextInt(names.length)],
+                        random.nextBoolean(), random.nextInt(3) * 25.0);
+                debts.add(debt);
+                calculator.addBalanceSheetItem(debt.debt(), debt.name(), debt.isInterest(), debt.interestAmount());
+            }
+            for (int i = random.nextInt(12); i > 0; i--) {
+                Baseline.Item item = new Baseline.Item(random.nextBoolean(), kinds[random.nextInt(kinds.length)],
+                        names[random.nextInt(names.length)], random.nextInt(1000), random.nextBoolean(),
+                        random.nextInt(3) * 10.0);
+                items.add(item);
+                calculator.addIncomeExpenseItem(item.expense(), item.kind(), item.name(), item.amount(),
+                        item.isInterest(), item.interestAmount());
+            }
+
+            CashFlowResult result = calculator.calculate();
+            Baseline expected = new Baseline(debts, items);
+            for (Bucket bucket : Bucket.values()) {
+                assertThat(result.total(bucket)).as("%s in round %d", bucket, round)
+                        .isCloseTo(expected.totals.get(bucket), within(1e-9));
+            }
+            assertThat(lines(result, Bucket.ASSET_INCOME)).isEqualTo(expected.assetIncome);
+            assertThat(lines(result, Bucket.INTEREST_EXPENSE)).isEqualTo(expected.interestExpense);
+            assertThat(lines(result, Bucket.ASSET_EXPENSE)).isEqualTo(expected.assetExpense);
+        }
+    }
+
+    private static Map<String, Double> lines(CashFlowResult result, Bucket bucket) {
+        NamedAmounts lines = result.lines(bucket);
+        Map<String, Double> map = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            map.put(lines.name(i), lines.amount(i));
+        }
+        return map;
+    }
+
+    /** The map-based rules of the original FinanceController#getCashFlow, kept as the reference. */
+    private static final class Baseline {
+
+        record Debt(boolean debt, String name, boolean isInterest, double interestAmount) {
+        }
+
+        record Item(boolean expense, Kind kind, String name, double amount, boolean isInterest,
+                double interestAmount) {
+        }
+
+        final Map<Bucket, Double> totals = new HashMap<>();
+        final Map<String, Double> assetIncome = new HashMap<>();
+        final Map<String, Double> interestExpense = new HashMap<>();
+        final Map<String, Double> assetExpense = new HashMap<>();
+
+        Baseline(List<Debt> balanceSheet, List<Item> items) {
+            double laborIncome = items.stream()
+                    .filter(i -> !i.expense() && i.kind() == Kind.LABOR_INCOME)
+                    .mapToDouble(Item::amount).sum();
+            for (Item item : items) {
+                if (!item.expense() && item.kind() == Kind.ASSET_INCOME) {
+                    assetIncome.put(item.name(), item.amount());
+                }
+            }
+            double livingExpense = items.stream()
+                    .filter(i -> i.expense() && i.kind() == Kind.LIVING_EXPENSE)
+                    .mapToDouble(Item::amount).sum();
+
+            List<Debt> debts = balanceSheet.stream().filter(Debt::debt).toList();
+            Set<String> debtNames = new HashSet<>();
+            debts.forEach(debt -> debtNames.add(debt.name()));
+            for (Item item : items) {
+                if (item.expense() && item.isInterest() && !debtNames.contains(item.name())) {
+                    interestExpense.put(item.name(), item.amount());
+                }
+            }
+
+            for (Debt debt : debts) {
+                if (debt.isInterest() && debt.interestAmount() > 0) {
+                    assetExpense.put(debt.name() + " (利息)", debt.interestAmount());
+                }
+            }
+            for (Item item : items) {
+                if (item.expense() && (item.kind() == Kind.ASSET_EXPENSE || item.kind() == Kind.LOAN_REPAYMENT)) {
+                    if (debtNames.contains(item.name())) {
+                        if (item.isInterest() && item.interestAmount() > 0) {
+                            assetExpense.put(item.name(), item.interestAmount());
+                        }
+                    } else {
+                        assetExpense.put(item.name(), item.amount());
+                    }
+                }
+            }
+
+            totals.put(Bucket.LABOR_INCOME, laborIncome);
+            totals.put(Bucket.ASSET_INCOME, sum(assetIncome));
+            totals.put(Bucket.LIVING_EXPENSE, livingExpense);
+            totals.put(Bucket.INTEREST_EXPENSE, sum(interestExpense));
+            totals.put(Bucket.ASSET_EXPENSE, sum(assetExpense));
+        }
+
+        private static double sum(Map<String, Double> lines) {
+            return lines.values().stream().mapToDouble(Double::doubleValue).sum();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.cashflow.app.controller;
+
+import com.cashflow.app.service.AiChatLimiter;
+import com.cashflow.app.service.AiResponseCache;
+import com.cashflow.app.service.AiServiceHealth;
+import com.cashflow.app.service.AiStreamMetrics;
+import com.cashflow.app.service.ConversationStore;
+import com.cashflow.app.service.FinancialSnapshotService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** The chat concurrency permits come back on every early exit of {@code /api/ai/chat}. */
+class AiControllerTest {
+
+    private static final long USER_ID = 7L;
+
+    private final AiChatLimiter chatLimiter = new AiChatLimiter(1, 1, new SimpleMeterRegistry());
+    private final AiServiceHealth aiServiceHealth = mock(AiServiceHealth.class);
+    private final ConversationStore conversationStore = mock(ConversationStore.class);
+
+    private AiController controller;
+
+    @BeforeEach
+    void createController() {
+        when(aiServiceHealth.allowRequest()).thenReturn(true);
+        controller = new AiController(mock(WebClient.class), Schedulers.immediate(), chatLimiter,
+                mock(FinancialSnapshotService.class), mock(AiResponseCache.class), aiServiceHealth,
+                conversationStore, mock(AiStreamMetrics.class));
+        ReflectionTestUtils.setField(controller, "chatTimeout", Duration.ofMinutes(1));
+    }
+
+    @Test
+    void missingMessageIsRejectedWithoutTakingAPermit() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(controller.chat(USER_ID, new AiController.FrontendChatRequest(null, null, null))
+                    .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+            assertThat(controller.chat(USER_ID, new AiController.FrontendChatRequest("  ", null, null))
+                    .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+
+        assertPermitAvailable();
+    }
+
+    @Test
+    void unknownConversationReturnsThePermit() {
+        when(conversationStore.open(anyLong(), any(), any())).thenReturn(null);
+
+        assertThat(controller.chat(USER_ID, new AiController.FrontendChatRequest("hi", null, "gone"))
+                .getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+
+        assertPermitAvailable();
+    }
+
+    @Test
+    void failureAfterThePermitReturnsIt() {
+        when(conversationStore.open(anyLong(), any(), any())).thenThrow(new IllegalStateException("boom"));
+
+        assertThatThrownBy(() -> controller.chat(USER_ID, new AiController.FrontendChatRequest("hi", null, null)))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertPermitAvailable();
+    }
+
+    // Limits are 1 per user and 1 overall, so one leaked permit would lock everyone out
+    private void assertPermitAvailable() {
+        assertThat(chatLimiter.active()).isZero();
+        AiChatLimiter.Permit permit = chatLimiter.tryAcquire(USER_ID);
+        assertThat(permit).isNotNull();
+        permit.release();
+    }
+}
@@ -0,0 +1,152 @@
+package com.cashflow.app.security;
+
+import com.cashflow.app.entity.Report;
+import com.cashflow.app.entity.User;
+import com.cashflow.app.repository.ReportRepository;
+import com.cashflow.app.repository.UserRepository;
+import com.cashflow.app.security.jwt.JwtUtils;
+import com.cashflow.app.security.services.UserDetailsImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Ownership of {@code /api/reports/{reportId}/**} (ReportOwnershipInterceptor) and of
+ * the dashboard, through the real filter chain and the cached {@link ReportOwnershipGuard}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReportOwnershipTest {
+
+    private static final String ITEM = "{\"category\":\"CURRENT_ASSET\",\"name\":\"cash\",\"amount\":100}";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    ReportRepository reportRepository;
+
+    @Autowired
+    JwtUtils jwtUtils;
+
+    private String owner;
+    private String stranger;
+    private long reportId;
+
+    @BeforeEach
+    void createUsersAndReport() throws Exception {
+        owner = token("owner");
+        stranger = token("stranger");
+        reportId = createReport(owner, "PERSONAL");
+    }
+
+    @Test
+    void anotherUsersReportIsRefused() throws Exception {
+        List<MockHttpServletRequestBuilder> requests = List.of(
+                get("/api/reports/{id}/balance-sheet", reportId),
+                get("/api/reports/{id}/income-expense", reportId),
+                get("/api/reports/{id}/cashflow", reportId),
+                get("/api/reports/{id}/cashflow/summary", reportId),
+                get("/api/reports/{id}/export", reportId),
+                post("/api/reports/{id}/balance-sheet", reportId).contentType(MediaType.APPLICATION_JSON).content(ITEM),
+                put("/api/reports/{id}/balance-sheet/{item}", reportId, 1).contentType(MediaType.APPLICATION_JSON)
+                        .content(ITEM),
+                post("/api/reports/{id}/items/batch", reportId).contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"),
+                delete("/api/reports/{id}", reportId),
+                get("/api/reports/dashboard").param("reportId", String.valueOf(reportId)));
+        for (MockHttpServletRequestBuilder request : requests) {
+            perform(stranger, request).andExpect(status().isForbidden());
+        }
+
+        // Still intact for its owner
+        perform(owner, get("/api/reports/{id}/balance-sheet", reportId)).andExpect(status().isOk());
+        perform(owner, get("/api/reports/dashboard").param("reportId", String.valueOf(reportId)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void newReportIsAccessibleAtOnce() throws Exception {
+        // Caches the owner's report ids
+        perform(owner, get("/api/reports/{id}/balance-sheet", reportId)).andExpect(status().isOk());
+
+        long created = createReport(owner, "FAMILY");
+        perform(owner, post("/api/reports/{id}/balance-sheet", created).contentType(MediaType.APPLICATION_JSON)
+                .content(ITEM)).andExpect(status().isOk());
+        perform(owner, get("/api/reports/{id}/cashflow", created)).andExpect(status().isOk());
+    }
+
+    @Test
+    void reportCreatedElsewhereIsAccessible() throws Exception {
+        perform(owner, get("/api/reports/{id}/balance-sheet", reportId)).andExpect(status().isOk());
+
+        // As if inserted by another instance: this instance's cache was not evicted
+        Report report = new Report();
+        report.setUser(userRepository.findById(reportRepository.findById(reportId).orElseThrow().getUser().getId())
+                .orElseThrow());
+        report.setType(Report.ReportType.FAMILY);
+        report.setName("family");
+        long created = reportRepository.save(report).getId();
+
+        perform(owner, get("/api/reports/{id}/balance-sheet", created)).andExpect(status().isOk());
+    }
+
+    @Test
+    void deletedReportIsRefused() throws Exception {
+        perform(owner, get("/api/reports/{id}/balance-sheet", reportId)).andExpect(status().isOk());
+
+        perform(owner, delete("/api/reports/{id}", reportId)).andExpect(status().isOk());
+
+        perform(owner, get("/api/reports/{id}/balance-sheet", reportId)).andExpect(status().isForbidden());
+        perform(owner, get("/api/reports/dashboard").param("reportId", String.valueOf(reportId)))
+                .andExpect(status().isForbidden());
+    }
+
+    private long createReport(String token, String type) throws Exception {
+        String body = perform(token, post("/api/reports").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"type\":\"" + type + "\",\"name\":\"report\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode report = objectMapper.readTree(body);
+        return report.path("id").asLong();
+    }
+
+    private ResultActions perform(String token, MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+    }
+
+    private String token(String name) {
+        User user = new User();
+        user.setUsername(name + "-" + System.nanoTime());
+        user.setPassword("x");
+        user = userRepository.save(user);
+        return jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(UserDetailsImpl.build(user), null, List.of()));
+    }
+}
@@ -0,0 +1,186 @@
+package com.cashflow.app.service;
+
+import com.cashflow.app.entity.BalanceSheetItem;
+import com.cashflow.app.entity.CashFlowSummary;
+import com.cashflow.app.entity.IncomeExpenseItem;
+import com.cashflow.app.entity.Report;
+import com.cashflow.app.entity.User;
+import com.cashflow.app.payload.response.CashFlowTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * The database-side totals ({@code aggregate}, used only by {@code refresh}) against the
+ * full recompute over the items ({@code compute}), and reads served from the stored summary.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(CashFlowService.class)
+class CashFlowServiceTest {
+
+    @Autowired
+    CashFlowService cashFlowService;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        user = new User();
+        user.setUsername("user-" + System.nanoTime());
+        user.setPassword("x");
+        entityManager.persist(user);
+    }
+
+    @Test
+    void totalsFollowTheCashFlowRules() {
+        Report report = report();
+        debt(report, "car", true, 50);
+        debt(report, "mortgage", false, 0);
+        item(report, IncomeExpenseItem.Type.INCOME, IncomeExpenseItem.Category.LABOR_INCOME, "salary", 5000, false, 0);
+        item(report, IncomeExpenseItem.Type.INCOME, IncomeExpenseItem.Category.ASSET_INCOME, "rent", 700, false, 0);
+        item(report, IncomeExpenseItem.Type.EXPENSE, IncomeExpenseItem.Category.LIVING_EXPENSE, "food", 800, false, 0);
+        item(report, IncomeExpenseItem.Type.EXPENSE, IncomeExpenseItem.Category.LIVING_EXPENSE, "card", 200, true, 0);
+        item(report, IncomeExpenseItem.Type.EXPENSE, IncomeExpenseItem.Category.LOAN_REPAYMENT, "car", 300, true, 40);
+        item(report, IncomeExpenseItem.Type.EXPENSE, IncomeExpenseItem.Category.ASSET_EXPENSE, "stock", 100, false, 0);
+        entityManager.flush();
+        assertConsistent(report);
+
+        CashFlowTable totals = cashFlowService.calculate(report.getId(), false);
+        CashFlowTable full = cashFlowService.calculate(report.getId(), true);
+
+        for (CashFlowTable table : new CashFlowTable[] { totals, full }) {
+            assertThat(table.laborIncome()).isEqualTo(5000.0);
+            assertThat(table.assetIncome()).isEqualTo(700.0);
+            assertThat(table.livingExpense()).isEqualTo(1000.0);
+            // Interest of a non-debt expense; the repayment of debt "car" is not one
+            assertThat(table.interestExpense()).isEqualTo(200.0);
+            // "car (利息)" 50 + interest part of the car repayment 40 + stock 100
+            assertThat(table.assetExpense()).isEqualTo(190.0);
+        }
+        assertThat(full.assetExpenseItems()).extracting("name").containsExactlyInAnyOrder("car (利息)", "car", "stock");
+    }
+
+    @Test
+    void repeatedNamesKeepTheLastAmount() {
+        Report report = report();
+        debt(report, "car", true, 50);
+        item(report, IncomeExpenseItem.Type.INCOME, IncomeExpenseItem.Category.ASSET_INCOME, "rent", 700, false, 0);
+        item(report, IncomeExpenseItem.Type.INCOME, IncomeExpenseItem.Category.ASSET_INCOME, "rent", 650, false, 0);
+        // Replaces the debt's interest line instead of adding to it
+        item(report, IncomeExpenseItem.Type.EXPENSE, IncomeExpenseItem.Category.ASSET_EXPENSE, "car (利息)", 70,
+                false, 0);
+        entityManager.flush();
+        assertConsistent(report);
+
+        for (boolean withItems : new boolean[] { false, true }) {
+            CashFlowTable table = cashFlowService.calculate(report.getId(), withItems);
+            assertThat(table.assetIncome()).isEqualTo(650.0);
+            assertThat(table.assetExpense()).isEqualTo(70.0);
+        }
+    }
+
+    @Test
+    void readsServeTheStoredSummary() {
+        Report report = report();
+        item(report, IncomeExpenseItem.Type.INCOME, IncomeExpenseItem.Category.LABOR_INCOME, "salary", 5000, false, 0);
+        entityManager.flush();
+        // Without a summary row yet, the totals are computed from the items
+        assertThat(cashFlowService.calculate(report.getId(), false).laborIncome()).isEqualTo(5000.0);
+
+        cashFlowService.refresh(report.getId());
+        // Written behind the service's back: reads keep the stored totals until the next refresh
+        item(report, IncomeExpenseItem.Type.INCOME, IncomeExpenseItem.Category.LABOR_INCOME, "bonus", 1000, false, 0);
+        entityManager.flush();
+        assertThat(cashFlowService.calculate(report.getId(), false).laborIncome()).isEqualTo(5000.0);
+        assertThat(cashFlowService.calculate(report.getId(), true).laborIncome()).isEqualTo(5000.0);
+
+        cashFlowService.refresh(report.getId());
+        assertThat(cashFlowService.calculate(report.getId(), false).laborIncome()).isEqualTo(6000.0);
+    }
+
+    @Test
+    void databaseTotalsMatchTheRecomputeOnRandomReports() {
+        Random random = new Random(7);
+        String[] names = { "car", "rent", "salary", "food", "stock", "card", "loan", "car (利息)" };
+        IncomeExpenseItem.Category[] categories = IncomeExpenseItem.Category.values();
+        for (int round = 0; round < 100; round++) {
+            Report report = report();
+            for (int i = random.nextInt(3); i > 0; i--) {
+                debt(report, names[random.nextInt(names.length)], random.nextBoolean(), random.nextInt(3) * 25);
+            }
+            // Every other report draws from a pool large enough that names rarely repeat,
+            // so both the database totals and their fallback are exercised
+            boolean unique = round % 2 == 0;
+            for (int i = random.nextInt(10); i > 0; i--) {
+                String name = unique ? "item-" + random.nextInt(1_000_000) : names[random.nextInt(names.length)];
+                item(report, random.nextBoolean() ? IncomeExpenseItem.Type.INCOME : IncomeExpenseItem.Type.EXPENSE,
+                        categories[random.nextInt(categories.length)], name, random.nextInt(1000),
+                        random.nextBoolean(), random.nextInt(3) * 10);
+            }
+            entityManager.flush();
+
+            CashFlowSummary summary = cashFlowService.refresh(report.getId());
+            assertThat(cashFlowService.check(report.getId())).as("round %d", round)
+                    .containsEntry("consistent", true);
+            CashFlowTable totals = cashFlowService.calculate(report.getId(), false);
+            assertThat(totals.laborIncome()).as("round %d", round)
+                    .isCloseTo(summary.getLaborIncome(), within(1e-6));
+            assertThat(totals.assetExpense()).as("round %d", round)
+                    .isCloseTo(summary.getAssetExpense(), within(1e-6));
+        }
+    }
+
+    // refresh() stores the database totals, check() compares them with the recompute
+    private void assertConsistent(Report report) {
+        CashFlowSummary summary = cashFlowService.refresh(report.getId());
+        assertThat(summary.getVersion()).isPositive();
+        assertThat(cashFlowService.check(report.getId())).containsEntry("consistent", true);
+    }
+
+    private Report report() {
+        Report report = new Report();
+        report.setUser(user);
+        report.setType(Report.ReportType.PERSONAL);
+        report.setName("report");
+        return entityManager.persist(report);
+    }
+
+    private void debt(Report report, String name, boolean isInterest, double interestAmount) {
+        BalanceSheetItem item = new BalanceSheetItem();
+        item.setReport(report);
+        item.setCategory(BalanceSheetItem.Category.CONSUMER_DEBT);
+        item.setName(name);
+        item.setAmount(1000.0);
+        item.setIsInterest(isInterest);
+        item.setInterestAmount(interestAmount);
+        entityManager.persist(item);
+    }
+
+    private void item(Report report, IncomeExpenseItem.Type type, IncomeExpenseItem.Category category, String name,
+            double amount, boolean isInterest, double interestAmount) {
+        IncomeExpenseItem item = new IncomeExpenseItem();
+        item.setReport(report);
+        item.setType(type);
+        item.setCategory(category);
+        item.setName(name);
+        item.setAmount(amount);
+        item.setIsInterest(isInterest);
+        item.setInterestAmount(interestAmount);
+        entityManager.persist(item);
+    }
+}
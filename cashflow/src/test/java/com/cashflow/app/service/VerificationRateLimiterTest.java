@@ -0,0 +1,59 @@
+package com.cashflow.app.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VerificationRateLimiterTest {
+
+    private final RateLimitStore store = mock(RateLimitStore.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final VerificationRateLimiter limiter = new VerificationRateLimiter(store,
+            3, Duration.ofSeconds(60), 20, Duration.ofSeconds(6), meterRegistry);
+
+    @Test
+    void checksTheIpBeforeTheIdentifier() {
+        assertThat(limiter.tryAcquire("a@example.com", "10.0.0.1")).isZero();
+
+        InOrder order = inOrder(store);
+        order.verify(store).tryAcquire("ip:10.0.0.1", 20, Duration.ofSeconds(6));
+        order.verify(store).tryAcquire("id:a@example.com", 3, Duration.ofSeconds(60));
+    }
+
+    @Test
+    void refusedIpDoesNotSpendAnIdentifierToken() {
+        when(store.tryAcquire(eq("ip:10.0.0.1"), anyInt(), eq(Duration.ofSeconds(6)))).thenReturn(4_200L);
+
+        assertThat(limiter.tryAcquire("a@example.com", "10.0.0.1")).isEqualTo(5);
+        verify(store, never()).tryAcquire(eq("id:a@example.com"), anyInt(), eq(Duration.ofSeconds(60)));
+        assertThat(rejected("ip")).isEqualTo(1);
+        assertThat(rejected("identifier")).isZero();
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        when(store.tryAcquire(eq("id:a@example.com"), anyInt(), eq(Duration.ofSeconds(60))))
+                .thenReturn(1L, 1_000L, 1_001L, 59_999L);
+
+        assertThat(limiter.tryAcquire("a@example.com", "10.0.0.1")).isEqualTo(1);
+        assertThat(limiter.tryAcquire("a@example.com", "10.0.0.1")).isEqualTo(1);
+        assertThat(limiter.tryAcquire("a@example.com", "10.0.0.1")).isEqualTo(2);
+        assertThat(limiter.tryAcquire("a@example.com", "10.0.0.1")).isEqualTo(60);
+        assertThat(rejected("identifier")).isEqualTo(4);
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("verification.rejected").tag("reason", reason).counter().count();
+    }
+}
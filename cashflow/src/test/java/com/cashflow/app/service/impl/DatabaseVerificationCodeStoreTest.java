@@ -0,0 +1,127 @@
+package com.cashflow.app.service.impl;
+
+import com.cashflow.app.repository.VerificationCodeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@TestPropertySource(properties = { "app.verification.store=database", "app.verification.max-codes=3" })
+@Import(DatabaseVerificationCodeStore.class)
+// Every store call commits on its own, as it does behind the controller
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DatabaseVerificationCodeStoreTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final Duration EXPIRED = Duration.ofMillis(-1);
+
+    @Autowired
+    DatabaseVerificationCodeStore store;
+
+    @Autowired
+    VerificationCodeRepository verificationCodeRepository;
+
+    @BeforeEach
+    void clear() {
+        verificationCodeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void saveReplacesTheCodeAndResetsAttempts() {
+        assertThat(store.save("a@example.com", "111111", TTL)).isTrue();
+        assertThat(store.consume("a@example.com", "000000", 2)).isFalse();
+        assertThat(store.save("a@example.com", "222222", TTL)).isTrue();
+
+        assertThat(verificationCodeRepository.count()).isEqualTo(1);
+        assertThat(store.consume("a@example.com", "111111", 2)).isFalse();
+        // Two wrong guesses in total, but the second save reset the count
+        assertThat(store.consume("a@example.com", "222222", 2)).isTrue();
+    }
+
+    @Test
+    void codeIsConsumedOnce() throws Exception {
+        store.save("a@example.com", "111111", TTL);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                attempts.add(() -> store.consume("a@example.com", "111111", 5));
+            }
+            int won = 0;
+            for (Future<Boolean> result : executor.invokeAll(attempts)) {
+                won += result.get() ? 1 : 0;
+            }
+            assertThat(won).isEqualTo(1);
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(verificationCodeRepository.count()).isZero();
+    }
+
+    @Test
+    void codeIsDroppedAfterMaxAttempts() {
+        store.save("a@example.com", "111111", TTL);
+
+        assertThat(store.consume("a@example.com", "000000", 2)).isFalse();
+        assertThat(store.consume("a@example.com", "000000", 2)).isFalse();
+
+        assertThat(store.consume("a@example.com", "111111", 2)).isFalse();
+        assertThat(verificationCodeRepository.count()).isZero();
+    }
+
+    @Test
+    void expiredCodeIsRejected() {
+        store.save("a@example.com", "111111", EXPIRED);
+
+        assertThat(store.consume("a@example.com", "111111", 5)).isFalse();
+    }
+
+    @Test
+    void capacityCountsLiveCodesOnly() {
+        assertThat(store.save("a@example.com", "111111", TTL)).isTrue();
+        assertThat(store.save("b@example.com", "111111", TTL)).isTrue();
+        assertThat(store.save("c@example.com", "111111", EXPIRED)).isTrue();
+        assertThat(store.save("d@example.com", "111111", TTL)).isTrue();
+
+        assertThat(store.save("e@example.com", "111111", TTL)).isFalse();
+        // An identifier that already has a code may always get a new one
+        assertThat(store.save("a@example.com", "222222", TTL)).isTrue();
+
+        store.consume("b@example.com", "111111", 5);
+        assertThat(store.save("e@example.com", "111111", TTL)).isTrue();
+    }
+
+    @Test
+    void sweepDeletesExpiredRowsInBatches() {
+        for (int i = 0; i < DatabaseVerificationCodeStore.SWEEP_BATCH + 5; i++) {
+            store.save("expired-" + i, "111111", EXPIRED);
+        }
+        store.save("a@example.com", "111111", TTL);
+
+        store.sweep();
+
+        assertThat(verificationCodeRepository.count()).isEqualTo(1);
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.consume("a@example.com", "111111", 5)).isTrue();
+    }
+}
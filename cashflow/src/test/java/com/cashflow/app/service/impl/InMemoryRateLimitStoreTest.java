@@ -0,0 +1,84 @@
+package com.cashflow.app.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryRateLimitStoreTest {
+
+    private static final long INTERVAL = TimeUnit.SECONDS.toNanos(6);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void fullBucketAllowsABurstOfCapacity() {
+        InMemoryRateLimitStore.TokenBucket bucket = new InMemoryRateLimitStore.TokenBucket(3, INTERVAL, clock::get);
+
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isZero();
+        // The fourth must wait for one interval to pass
+        assertThat(bucket.tryAcquire()).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void oneTokenComesBackPerInterval() {
+        InMemoryRateLimitStore.TokenBucket bucket = new InMemoryRateLimitStore.TokenBucket(2, INTERVAL, clock::get);
+        bucket.tryAcquire();
+        bucket.tryAcquire();
+
+        clock.addAndGet(INTERVAL - 1);
+        assertThat(bucket.tryAcquire()).isEqualTo(1);
+
+        clock.addAndGet(1);
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isEqualTo(INTERVAL);
+
+        // Idle time refills the bucket, but never beyond capacity
+        clock.addAndGet(10 * INTERVAL);
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void storeReportsTheWaitInMillisAndKeepsKeysApart() {
+        InMemoryRateLimitStore store = new InMemoryRateLimitStore(100);
+        Duration refill = Duration.ofMinutes(1);
+
+        assertThat(store.tryAcquire("ip:1", 1, refill)).isZero();
+        long wait = store.tryAcquire("ip:1", 1, refill);
+        assertThat(wait).isBetween(refill.toMillis() - 5_000, refill.toMillis());
+        assertThat(store.tryAcquire("ip:2", 1, refill)).isZero();
+    }
+
+    @Test
+    void concurrentCallersNeverTakeMoreThanCapacity() throws Exception {
+        InMemoryRateLimitStore.TokenBucket bucket = new InMemoryRateLimitStore.TokenBucket(5, INTERVAL, clock::get);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Callable<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                attempts.add(() -> bucket.tryAcquire() == 0);
+            }
+            int taken = 0;
+            for (Future<Boolean> result : executor.invokeAll(attempts)) {
+                taken += result.get() ? 1 : 0;
+            }
+            assertThat(taken).isEqualTo(5);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -15,8 +15,10 @@ export const aiApi = {
    * @param {Function} onToken 收到 token 时的回调
    * @param {Function} onDone 完成时的回调
    * @param {Function} onError 错误时的回调
+   * @param {string|null} conversationId 服务端会话 ID；有值时不再上传历史，会话不存在（409）时改为上传 history 重发
+   * @param {Function} onConversationId 收到（新的）会话 ID 时的回调
    */
-  async chatStream(message, history, onToken, onDone, onError) {
+  async chatStream(message, history, onToken, onDone, onError, conversationId = null, onConversationId = null) {
     const token = localStorage.getItem('token');
     
     try {
@@ -26,13 +28,29 @@ export const aiApi = {
           'Content-Type': 'application/json',
           'Authorization': `Bearer ${token}`
         },
-        body: JSON.stringify({ message, history })
+        // 历史由服务端会话保存，只有新会话才需要上传本地历史
+        body: JSON.stringify(conversationId ? { message, conversationId } : { message, history })
       });
 
+      // 服务端会话已不存在（过期、服务重启或请求落到其他实例）：不带会话 ID 重发，由本地历史开启新会话
+      if (response.status === 409 && conversationId) {
+        return this.chatStream(message, history, onToken, onDone, onError, null, onConversationId);
+      }
+      if (response.status === 429) {
+        throw new Error('AI 助手当前对话过多，请稍后再试');
+      }
+      if (response.status === 503) {
+        throw new Error('AI 服务暂时不可用，请稍后再试');
+      }
       if (!response.ok) {
         throw new Error(`HTTP error! status: ${response.status}`);
       }
 
+      const newConversationId = response.headers.get('X-Conversation-Id');
+      if (newConversationId && onConversationId) {
+        onConversationId(newConversationId);
+      }
+
       const reader = response.body.getReader();
       const decoder = new TextDecoder('utf-8');
       
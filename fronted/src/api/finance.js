@@ -11,10 +11,15 @@ export const financeApi = {
   deleteReport(id) {
     return api.delete(`/reports/${id}`)
   },
+  // 报表列表、指定报表的两张明细表与现金流，一次请求返回
+  getDashboard(reportId) {
+    return api.get('/reports/dashboard', { params: { reportId } })
+  },
 
   // ===== 资产负债表 =====
-  getBalanceSheet(reportId) {
-    return api.get(`/reports/${reportId}/balance-sheet`)
+  // 分页返回（默认每页 100 条），params: { category, limit, cursor }；响应头 X-Next-Cursor 为下一页游标
+  getBalanceSheet(reportId, params) {
+    return api.get(`/reports/${reportId}/balance-sheet`, { params })
   },
   addBalanceSheetItem(reportId, data) {
     return api.post(`/reports/${reportId}/balance-sheet`, data)
@@ -27,8 +32,9 @@ export const financeApi = {
   },
 
   // ===== 收入支出表 =====
-  getIncomeExpense(reportId) {
-    return api.get(`/reports/${reportId}/income-expense`)
+  // 分页方式同资产负债表，另可按 type 过滤
+  getIncomeExpense(reportId, params) {
+    return api.get(`/reports/${reportId}/income-expense`, { params })
   },
   addIncomeExpenseItem(reportId, data) {
     return api.post(`/reports/${reportId}/income-expense`, data)
@@ -40,6 +46,12 @@ export const financeApi = {
     return api.delete(`/reports/${reportId}/income-expense/${itemId}`)
   },
 
+  // ===== 批量修改 =====
+  // 两张表的新增/修改/删除在一个事务中提交，如 { balanceSheet: [{ action: 'UPDATE', id, item }], incomeExpense: [] }
+  applyItemBatch(reportId, operations) {
+    return api.post(`/reports/${reportId}/items/batch`, operations)
+  },
+
   // ===== 现金流表 =====
   getCashFlow(reportId) {
     return api.get(`/reports/${reportId}/cashflow`)
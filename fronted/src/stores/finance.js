@@ -2,6 +2,8 @@ import { defineStore } from 'pinia'
 import { ref } from 'vue'
 import { financeApi } from '../api/finance'
 
+const PAGE_SIZE = 500
+
 export const useFinanceStore = defineStore('finance', () => {
   const reports = ref([])
   const currentReport = ref(null)
@@ -10,6 +12,18 @@ export const useFinanceStore = defineStore('finance', () => {
   const cashFlow = ref(null)
   const loading = ref(false)
 
+  // 按 X-Next-Cursor 逐页读取，直到最后一页
+  async function fetchAllPages(fetchPage) {
+    const items = []
+    let cursor
+    do {
+      const res = await fetchPage(cursor)
+      items.push(...res.data)
+      cursor = res.headers['x-next-cursor']
+    } while (cursor)
+    return items
+  }
+
   // ===== 报表管理 =====
   async function fetchReports() {
     loading.value = true
@@ -32,12 +46,27 @@ export const useFinanceStore = defineStore('finance', () => {
     reports.value = reports.value.filter(r => r.id !== id)
   }
 
+  // ===== 报表页面（一次请求加载全部数据）=====
+  async function fetchDashboard(reportId) {
+    loading.value = true
+    try {
+      const res = await financeApi.getDashboard(reportId)
+      const data = res.data
+      reports.value = data.reports
+      currentReport.value = data.reports.find(r => r.id === data.reportId) || null
+      balanceSheet.value = data.balanceSheet || []
+      incomeExpense.value = data.incomeExpense || []
+      cashFlow.value = data.cashFlow
+    } finally {
+      loading.value = false
+    }
+  }
+
   // ===== 资产负债表 =====
   async function fetchBalanceSheet(reportId) {
     loading.value = true
     try {
-      const res = await financeApi.getBalanceSheet(reportId)
-      balanceSheet.value = res.data
+      balanceSheet.value = await fetchAllPages(cursor => financeApi.getBalanceSheet(reportId, { limit: PAGE_SIZE, cursor }))
     } finally {
       loading.value = false
     }
@@ -65,8 +94,7 @@ export const useFinanceStore = defineStore('finance', () => {
   async function fetchIncomeExpense(reportId) {
     loading.value = true
     try {
-      const res = await financeApi.getIncomeExpense(reportId)
-      incomeExpense.value = res.data
+      incomeExpense.value = await fetchAllPages(cursor => financeApi.getIncomeExpense(reportId, { limit: PAGE_SIZE, cursor }))
     } finally {
       loading.value = false
     }
@@ -103,7 +131,7 @@ export const useFinanceStore = defineStore('finance', () => {
 
   return {
     reports, currentReport, balanceSheet, incomeExpense, cashFlow, loading,
-    fetchReports, createReport, deleteReport,
+    fetchReports, createReport, deleteReport, fetchDashboard,
     fetchBalanceSheet, addBalanceSheetItem, updateBalanceSheetItem, deleteBalanceSheetItem,
     fetchIncomeExpense, addIncomeExpenseItem, updateIncomeExpenseItem, deleteIncomeExpenseItem,
     fetchCashFlow